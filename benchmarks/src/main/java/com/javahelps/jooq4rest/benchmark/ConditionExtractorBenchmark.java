@@ -0,0 +1,67 @@
+package com.javahelps.jooq4rest.benchmark;
+
+import com.javahelps.jooq4rest.annotation.Equal;
+import com.javahelps.jooq4rest.annotation.GreaterThanOrEqual;
+import com.javahelps.jooq4rest.annotation.In;
+import com.javahelps.jooq4rest.annotation.LikeIgnoreCase;
+import com.javahelps.jooq4rest.condition.ConditionExtractor;
+import org.jooq.Condition;
+import org.jooq.Record4;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of extracting a condition from a request DTO on every REST list request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class ConditionExtractorBenchmark {
+
+    public record QueryParam(@Equal("name") String name,
+                             @GreaterThanOrEqual("age") Integer age,
+                             @LikeIgnoreCase("country") String country,
+                             @In("role") Collection<String> roles) {
+    }
+
+    private Table<Record4<String, Integer, String, String>> table;
+    private ConditionExtractor<Record4<String, Integer, String, String>, QueryParam> extractor;
+    private QueryParam allFields;
+    private QueryParam someFields;
+
+    @Setup
+    public void setUp() {
+        this.table = DSL.select(DSL.field("name", String.class),
+                        DSL.field("age", Integer.class),
+                        DSL.field("country", String.class),
+                        DSL.field("role", String.class))
+                .from(DSL.table("person"))
+                .asTable("person");
+        this.extractor = new ConditionExtractor<>(this.table, QueryParam.class);
+        this.allFields = new QueryParam("John", 25, "US", List.of("admin", "user"));
+        this.someFields = new QueryParam(null, 25, "US", List.of());
+    }
+
+    @Benchmark
+    public ConditionExtractor<Record4<String, Integer, String, String>, QueryParam> construct() {
+        return new ConditionExtractor<>(this.table, QueryParam.class);
+    }
+
+    @Benchmark
+    public Condition extractAllFields() {
+        return this.extractor.extract(this.allFields);
+    }
+
+    @Benchmark
+    public Condition extractSomeFields() {
+        return this.extractor.extract(this.someFields);
+    }
+}
@@ -0,0 +1,118 @@
+package com.javahelps.jooq4rest.benchmark;
+
+import com.javahelps.jooq4rest.page.Page;
+import com.javahelps.jooq4rest.repository.TransactionMode;
+import com.javahelps.jooq4rest.repository.UnifiedJooqRepository;
+import com.javahelps.jooq4rest.repository.dto.Person;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.javahelps.jooq4rest.repository.jooq.Person.PERSON;
+
+/**
+ * Measures the repository operations serving REST requests against an in-memory H2 database of 10,000 people.
+ * <p>
+ * Run with {@code -prof gc} to report the allocation rate next to the throughput.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(3)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    private static final int ROWS = 10_000;
+    private static final int PAGE_SIZE = 20;
+
+    private Connection connection;
+    private DSLContext context;
+    private PersonRepository repository;
+    private long nextId;
+
+    @Setup
+    public void setUp() throws SQLException {
+        this.connection = DriverManager.getConnection("jdbc:h2:mem:RepositoryBenchmark;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE", "test", "");
+        try (Statement statement = this.connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+            statement.execute("INSERT INTO person (name, country) " +
+                    "SELECT 'Person ' || x, CASE MOD(x, 3) WHEN 0 THEN 'USA' WHEN 1 THEN 'UK' ELSE 'LK' END " +
+                    "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        }
+        this.context = DSL.using(this.connection, SQLDialect.H2);
+        this.repository = new PersonRepository(this.context, TransactionMode.NONE);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        this.connection.close();
+    }
+
+    @Benchmark
+    public Page<Person> query(QueryState state) {
+        return this.repository.query(PERSON.COUNTRY.eq("UK"), PERSON.ID.asc(), state.pageNumber, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Optional<Person> findById() {
+        this.nextId = this.nextId % ROWS + 1;
+        return this.repository.findById(this.nextId);
+    }
+
+    @Benchmark
+    public Long insert(InsertState state) {
+        return state.repository.insert(new Person(null, "Alice", "USA"));
+    }
+
+    @Benchmark
+    public List<Person> fetchInto() {
+        return this.context.selectFrom(PERSON)
+                .orderBy(PERSON.ID)
+                .limit(PAGE_SIZE)
+                .fetchInto(Person.class);
+    }
+
+    @State(Scope.Benchmark)
+    public static class QueryState {
+
+        @Param({"0", "10", "100"})
+        public int pageNumber;
+    }
+
+    @State(Scope.Benchmark)
+    public static class InsertState {
+
+        @Param({"NONE", "WRITE_ONLY", "READ_WRITE"})
+        public TransactionMode transactionMode;
+
+        private PersonRepository repository;
+
+        @Setup
+        public void setUp(RepositoryBenchmark benchmark) {
+            this.repository = new PersonRepository(benchmark.context, this.transactionMode);
+        }
+
+        @TearDown(Level.Iteration)
+        public void deleteInserted(RepositoryBenchmark benchmark) {
+            // Keeps the table at the same size for every iteration
+            benchmark.context.deleteFrom(PERSON).where(PERSON.ID.gt((long) ROWS)).execute();
+        }
+    }
+
+    public static class PersonRepository extends UnifiedJooqRepository<Person, Long> {
+
+        public PersonRepository(DSLContext context, TransactionMode transactionMode) {
+            super(context, PERSON, PERSON.ID, Person.class, transactionMode);
+        }
+    }
+}
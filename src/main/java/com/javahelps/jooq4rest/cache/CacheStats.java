@@ -0,0 +1,21 @@
+package com.javahelps.jooq4rest.cache;
+
+/**
+ * A snapshot of the statistics of an {@link EntityCache}.
+ *
+ * @param hits      the number of lookups that found a cached entity
+ * @param misses    the number of lookups that did not find a cached entity
+ * @param evictions the number of entities removed because of the size limit or their expiry
+ */
+public record CacheStats(long hits, long misses, long evictions) {
+
+    /**
+     * Returns the ratio of lookups that found a cached entity.
+     *
+     * @return the hit rate, or 1 if there were no lookups
+     */
+    public double hitRate() {
+        long lookups = hits + misses;
+        return lookups == 0 ? 1.0 : (double) hits / lookups;
+    }
+}
@@ -0,0 +1,74 @@
+package com.javahelps.jooq4rest.cache;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.function.Function;
+
+/**
+ * A cache of entities by their IDs used by a single repository.
+ * <p>
+ * Implementations must be thread-safe. Override
+ * {@link com.javahelps.jooq4rest.repository.JooqRepository#entityCache()} to enable a cache.
+ *
+ * @param <K> the type of the entity identifier
+ * @param <V> the type of the entity
+ */
+public interface EntityCache<K, V> {
+
+    /**
+     * Returns the cached entity of the given ID, loading and caching it if it is absent.
+     * <p>
+     * Concurrent calls missing the same ID must share a single load. An entity that is invalidated while it is being
+     * loaded must not be cached.
+     *
+     * @param id     the ID of the entity
+     * @param loader the function loading the entity, returning null if it does not exist
+     * @return the entity, or null if it does not exist
+     */
+    @Nullable
+    V get(@Nonnull K id, @Nonnull Function<? super K, ? extends V> loader);
+
+    /**
+     * Returns the cached entity of the given ID without loading it.
+     *
+     * @param id the ID of the entity
+     * @return the entity, or null if it is not cached
+     */
+    @Nullable
+    V getIfPresent(@Nonnull K id);
+
+    /**
+     * Returns the cached entity of the given ID without loading it or recording a hit or a miss, for the lookups that
+     * fall back to the database without loading the entity.
+     * <p>
+     * The default implementation delegates to {@link #getIfPresent(Object)}.
+     *
+     * @param id the ID of the entity
+     * @return the entity, or null if it is not cached
+     */
+    @Nullable
+    default V peek(@Nonnull K id) {
+        return getIfPresent(id);
+    }
+
+    /**
+     * Removes the entity of the given ID from the cache.
+     *
+     * @param id the ID of the entity
+     */
+    void invalidate(@Nonnull K id);
+
+    /**
+     * Removes all entities from the cache.
+     */
+    void invalidateAll();
+
+    /**
+     * Returns a snapshot of the statistics of this cache.
+     *
+     * @return the statistics
+     */
+    @Nonnull
+    CacheStats stats();
+}
@@ -0,0 +1,225 @@
+package com.javahelps.jooq4rest.cache;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded {@link EntityCache} evicting the least recently used entities and the entities older than a time to live.
+ * <p>
+ * Concurrent misses of the same ID wait for a single load instead of querying the database each. Lookups do not block:
+ * a hit moves the entity to the most recently used position only if no other thread holds the lock of the eviction
+ * order, so the eviction order is approximately least recently used under contention.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * private final EntityCache<Long, Person> entityCache = new LruEntityCache<>(10_000, Duration.ofMinutes(5));
+ *
+ * @Override
+ * protected EntityCache<Long, Person> entityCache() {
+ *     return this.entityCache;
+ * }
+ * }
+ * </pre>
+ *
+ * @param <K> the type of the entity identifier
+ * @param <V> the type of the entity
+ */
+public final class LruEntityCache<K, V> implements EntityCache<K, V> {
+
+    private final int capacity;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final Map<K, Entry<V>> order;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<K, CompletableFuture<V>> loads = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs an LruEntityCache holding up to the given number of entities for the given time.
+     *
+     * @param capacity   the maximum number of entities
+     * @param timeToLive the time an entity is cached after it is loaded
+     */
+    public LruEntityCache(int capacity, @Nonnull Duration timeToLive) {
+        this(capacity, timeToLive, System::nanoTime);
+    }
+
+    LruEntityCache(int capacity, @Nonnull Duration timeToLive, @Nonnull LongSupplier ticker) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+        }
+        this.capacity = capacity;
+        this.ttlNanos = timeToLive.toNanos();
+        this.ticker = Objects.requireNonNull(ticker);
+        this.order = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruEntityCache.this.capacity) {
+                    LruEntityCache.this.entries.remove(eldest.getKey(), eldest.getValue());
+                    LruEntityCache.this.evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Nullable
+    @Override
+    public V get(@Nonnull K id, @Nonnull Function<? super K, ? extends V> loader) {
+        V value = lookup(id);
+        if (value != null) {
+            this.hits.increment();
+            return value;
+        }
+        this.misses.increment();
+
+        CompletableFuture<V> load = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = this.loads.putIfAbsent(id, load);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+        try {
+            value = loader.apply(id);
+        } catch (RuntimeException | Error e) {
+            this.loads.remove(id, load);
+            load.completeExceptionally(e);
+            throw e;
+        }
+        this.lock.lock();
+        try {
+            // An invalidation during the load removes it from the loads, and the loaded value may be stale
+            if (this.loads.remove(id, load) && value != null) {
+                Entry<V> entry = new Entry<>(value, this.ticker.getAsLong() + this.ttlNanos);
+                this.entries.put(id, entry);
+                this.order.put(id, entry);
+            }
+        } finally {
+            this.lock.unlock();
+        }
+        load.complete(value);
+        return value;
+    }
+
+    @Nullable
+    @Override
+    public V getIfPresent(@Nonnull K id) {
+        V value = lookup(id);
+        if (value != null) {
+            this.hits.increment();
+        } else {
+            this.misses.increment();
+        }
+        return value;
+    }
+
+    @Nullable
+    @Override
+    public V peek(@Nonnull K id) {
+        return lookup(id);
+    }
+
+    @Override
+    public void invalidate(@Nonnull K id) {
+        this.lock.lock();
+        try {
+            this.loads.remove(id);
+            this.entries.remove(id);
+            this.order.remove(id);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        this.lock.lock();
+        try {
+            this.loads.clear();
+            this.entries.clear();
+            this.order.clear();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    @Nonnull
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum());
+    }
+
+    /**
+     * Returns the number of cached entities, including the expired ones not evicted yet.
+     *
+     * @return the number of cached entities
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    @Nullable
+    private V lookup(@Nonnull K id) {
+        Entry<V> entry = this.entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expiresAt() - this.ticker.getAsLong() <= 0) {
+            this.lock.lock();
+            try {
+                if (this.entries.remove(id, entry)) {
+                    this.order.remove(id, entry);
+                    this.evictions.increment();
+                }
+            } finally {
+                this.lock.unlock();
+            }
+            return null;
+        }
+        // Skipping the recency update under contention keeps the hits from queueing on the lock
+        if (this.lock.tryLock()) {
+            try {
+                this.order.get(id);
+            } finally {
+                this.lock.unlock();
+            }
+        }
+        return entry.value();
+    }
+
+    @Nullable
+    private static <V> V await(@Nonnull CompletableFuture<V> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            } else if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
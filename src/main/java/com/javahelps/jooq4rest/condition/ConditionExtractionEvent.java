@@ -0,0 +1,36 @@
+package com.javahelps.jooq4rest.condition;
+
+import jakarta.annotation.Nullable;
+
+import jdk.jfr.*;
+
+/**
+ * A Java Flight Recorder event of a condition extraction by a {@link ConditionExtractor}.
+ * <p>
+ * The event is disabled by default. Enable {@code com.javahelps.jooq4rest.ConditionExtraction} in a JFR settings file
+ * or with {@code jfr configure}, optionally with a threshold.
+ */
+@Name("com.javahelps.jooq4rest.ConditionExtraction")
+@Label("Condition Extraction")
+@Category({"jooq4rest"})
+@Description("Extraction of a jOOQ condition from an annotated object")
+@Enabled(false)
+@StackTrace(false)
+final class ConditionExtractionEvent extends Event {
+
+    @Label("Class")
+    @Description("The class of the annotated object")
+    @Nullable
+    Class<?> type;
+
+    @Label("Active Fields")
+    @Description("The bitmask of the annotated fields having a value, in the order of the extractor, up to 64 fields")
+    long activeFields;
+
+    @Label("Active Field Count")
+    int activeFieldCount;
+
+    @Label("Shaped")
+    @Description("True if the condition was extracted with its shape")
+    boolean shaped;
+}
@@ -11,7 +11,12 @@ import org.jooq.Table;
 import org.jooq.impl.DSL;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.RecordComponent;
 import java.time.LocalDate;
 import java.util.*;
 
@@ -30,13 +35,25 @@ public class ConditionExtractor<R extends Record, T> {
             GreaterThanOrEqual.class, List.of(String.class, Integer.class, Long.class, LocalDate.class)
     );
     private static final List<Class<? extends Annotation>> SUPPORTED_ANNOTATIONS = List.of(Equal.class, LikeIgnoreCase.class, In.class, GreaterThanOrEqual.class);
+    private static final Map<Class<? extends Annotation>, Operator> OPERATORS = Map.of(
+            Equal.class, Operator.EQUAL,
+            LikeIgnoreCase.class, Operator.LIKE_IGNORE_CASE,
+            In.class, Operator.IN,
+            GreaterThanOrEqual.class, Operator.GREATER_THAN_OR_EQUAL
+    );
+
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
 
     private final Table<R> table;
     private final Class<T> clazz;
-    private final Map<Class<? extends Annotation>, List<FieldAnnotationValue>> annotatedFields;
+    private final List<FieldCondition> fieldConditions;
 
     /**
      * Constructs a ConditionExtractor for the given table and class.
+     * <p>
+     * The columns and getters of the annotated fields are resolved once here, so that {@link #extract(Object)} does
+     * not need to look them up on every call.
      *
      * @param table the JOOQ table
      * @param clazz the class containing the annotated fields
@@ -44,30 +61,61 @@ public class ConditionExtractor<R extends Record, T> {
     public ConditionExtractor(@Nonnull Table<R> table, @Nonnull Class<T> clazz) {
         this.table = Objects.requireNonNull(table);
         this.clazz = Objects.requireNonNull(clazz);
-        this.annotatedFields = extractAnnotatedFields(clazz);
+        this.fieldConditions = extractFieldConditions(clazz);
     }
 
     /**
      * Extracts the annotated fields from the given class.
      *
      * @param clazz the class containing the annotated fields
-     * @return a map of annotation types to lists of fields
+     * @return the conditions of the annotated fields in the declaration order
      */
-    private Map<Class<? extends Annotation>, List<FieldAnnotationValue>> extractAnnotatedFields(Class<T> clazz) {
-        Map<Class<? extends Annotation>, List<FieldAnnotationValue>> annotatedFields = new HashMap<>();
+    private List<FieldCondition> extractFieldConditions(Class<T> clazz) {
+        List<FieldCondition> fieldConditions = new ArrayList<>();
         for (Field field : clazz.getDeclaredFields()) {
             for (Class<? extends Annotation> annotation : SUPPORTED_ANNOTATIONS) {
                 if (field.isAnnotationPresent(annotation)) {
                     String value = extractValue(field, annotation);
-                    if (!Objects.requireNonNull(SUPPORTED_TYPES.get(annotation)).contains(field.getType())) {
+                    if (Objects.requireNonNull(SUPPORTED_TYPES.get(annotation)).stream().noneMatch(type -> type.isAssignableFrom(field.getType()))) {
                         throw new IllegalArgumentException(clazz.getCanonicalName() + "#" + field.getName() + " has an unsupported type of " + field.getType().getCanonicalName());
                     }
-                    field.setAccessible(true); // Make the field accessible
-                    annotatedFields.computeIfAbsent(annotation, k -> new ArrayList<>()).add(new FieldAnnotationValue(field, value));
+                    fieldConditions.add(new FieldCondition(field.getName(), getter(clazz, field), column(field, annotation, value), Objects.requireNonNull(OPERATORS.get(annotation))));
                 }
             }
         }
-        return annotatedFields;
+        return List.copyOf(fieldConditions);
+    }
+
+    @SuppressWarnings("unchecked")
+    private org.jooq.Field<Object> column(Field field, Class<? extends Annotation> annotation, String name) {
+        org.jooq.Field<?> column;
+        if (annotation == Equal.class || annotation == GreaterThanOrEqual.class) {
+            column = this.table.field(name, field.getType());
+        } else {
+            column = this.table.field(name);
+        }
+        if (column == null) {
+            throw new IllegalArgumentException(clazz.getCanonicalName() + "#" + field.getName() + " refers to an unknown column " + name);
+        }
+        return (org.jooq.Field<Object>) column;
+    }
+
+    private static MethodHandle getter(Class<?> clazz, Field field) {
+        try {
+            if (clazz.isRecord()) {
+                for (RecordComponent component : clazz.getRecordComponents()) {
+                    if (component.getName().equals(field.getName())) {
+                        Method accessor = component.getAccessor();
+                        accessor.setAccessible(true); // Make the accessor accessible
+                        return LOOKUP.unreflect(accessor).asType(GETTER_TYPE);
+                    }
+                }
+            }
+            field.setAccessible(true); // Make the field accessible
+            return LOOKUP.unreflectGetter(field).asType(GETTER_TYPE);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(clazz.getCanonicalName() + "#" + field.getName() + " is not accessible", e);
+        }
     }
 
     private static String extractValue(Field field, Class<? extends Annotation> annotation) {
@@ -92,56 +140,79 @@ public class ConditionExtractor<R extends Record, T> {
      */
     @Nonnull
     public Condition extract(@Nonnull T object) {
-        Condition condition = DSL.trueCondition();
-        for (Map.Entry<Class<? extends Annotation>, List<FieldAnnotationValue>> entry : this.annotatedFields.entrySet()) {
-            for (FieldAnnotationValue fieldAnnotationValue : entry.getValue()) {
-                Object fieldValue;
-                try {
-                    fieldValue = fieldAnnotationValue.field().get(object);
-                    if (fieldValue == null) {
-                        continue;
-                    } else if (fieldValue instanceof Collection<?> collection && collection.isEmpty()) {
-                        continue;
-                    }
-                } catch (IllegalAccessException e) {
-                    continue;
-                }
-                if (entry.getKey() == Equal.class) {
-                    switch (fieldValue) {
-                        case String obj ->
-                                condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue(), String.class)).eq(obj));
-                        case Integer obj ->
-                                condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue(), Integer.class)).eq(obj));
-                        case Long obj ->
-                                condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue(), Long.class)).eq(obj));
-                        case LocalDate obj ->
-                                condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue(), LocalDate.class)).eq(obj));
-                        default ->
-                                throw new IllegalArgumentException(clazz.getCanonicalName() + "#" + fieldAnnotationValue.field() + " has an unsupported type of " + fieldValue.getClass().getCanonicalName());
-                    }
-                } else if (entry.getKey() == GreaterThanOrEqual.class) {
-                    switch (fieldValue) {
-                        case String obj ->
-                                condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue(), String.class)).ge(obj));
-                        case Integer obj ->
-                                condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue(), Integer.class)).ge(obj));
-                        case Long obj ->
-                                condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue(), Long.class)).ge(obj));
-                        case LocalDate obj ->
-                                condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue(), LocalDate.class)).ge(obj));
-                        default ->
-                                throw new IllegalArgumentException(clazz.getCanonicalName() + "#" + fieldAnnotationValue.field() + " has an unsupported type of " + fieldValue.getClass().getCanonicalName());
-                    }
-                } else if (entry.getKey() == LikeIgnoreCase.class) {
-                    condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue())).likeIgnoreCase("%" + fieldValue + "%"));
-                } else if (entry.getKey() == In.class) {
-                    if (fieldValue instanceof Collection<?> collection) {
-                        condition = condition.and(Objects.requireNonNull(table.field(fieldAnnotationValue.annotationValue())).in(collection));
-                    }
+        ConditionExtractionEvent event = new ConditionExtractionEvent();
+        event.begin();
+        List<Condition> conditions = new ArrayList<>(this.fieldConditions.size());
+        long activeFields = 0;
+        for (int i = 0; i < this.fieldConditions.size(); i++) {
+            FieldCondition fieldCondition = this.fieldConditions.get(i);
+            Object fieldValue = fieldCondition.get(object);
+            if (fieldValue == null) {
+                continue;
+            } else if (fieldValue instanceof Collection<?> collection && collection.isEmpty()) {
+                continue;
+            }
+            conditions.add(fieldCondition.operator().apply(fieldCondition.column(), fieldValue));
+            activeFields |= active(i);
+        }
+        commit(event, activeFields, conditions.size(), false);
+        return DSL.and(conditions);
+    }
+
+    /**
+     * Extracts the JOOQ condition from the annotated fields of the given object together with its shape.
+     * <p>
+     * The shape is made of the annotated fields having a value and the sizes of the collections of {@link In} fields.
+     * Objects with the same non-null fields therefore produce conditions of the same shape.
+     *
+     * @param object the object containing the annotated fields
+     * @return the JOOQ condition with its shape and bind values
+     */
+    @Nonnull
+    public ShapedCondition extractShaped(@Nonnull T object) {
+        ConditionExtractionEvent event = new ConditionExtractionEvent();
+        event.begin();
+        List<Condition> conditions = new ArrayList<>(this.fieldConditions.size());
+        List<Object> bindValues = new ArrayList<>(this.fieldConditions.size());
+        StringBuilder shape = new StringBuilder(this.clazz.getName()).append(':');
+        long activeFields = 0;
+        for (int i = 0; i < this.fieldConditions.size(); i++) {
+            FieldCondition fieldCondition = this.fieldConditions.get(i);
+            Object fieldValue = fieldCondition.get(object);
+            if (fieldValue == null) {
+                continue;
+            } else if (fieldValue instanceof Collection<?> collection && collection.isEmpty()) {
+                continue;
+            }
+            conditions.add(fieldCondition.operator().apply(fieldCondition.column(), fieldValue));
+            activeFields |= active(i);
+            shape.append(i);
+            if (fieldValue instanceof Collection<?> collection) {
+                shape.append('x').append(collection.size());
+                for (Object element : collection) {
+                    bindValues.add(fieldCondition.operator().bindValue(fieldCondition.column(), element));
                 }
+            } else {
+                bindValues.add(fieldCondition.operator().bindValue(fieldCondition.column(), fieldValue));
             }
+            shape.append(',');
         }
-        return condition;
+        commit(event, activeFields, conditions.size(), true);
+        return new ShapedCondition(DSL.and(conditions), shape.toString(), bindValues);
+    }
+
+    private static long active(int index) {
+        return index < Long.SIZE ? 1L << index : 0;
     }
-}
 
+    private void commit(@Nonnull ConditionExtractionEvent event, long activeFields, int activeFieldCount, boolean shaped) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.type = this.clazz;
+            event.activeFields = activeFields;
+            event.activeFieldCount = activeFieldCount;
+            event.shaped = shaped;
+            event.commit();
+        }
+    }
+}
@@ -1,6 +0,0 @@
-package com.javahelps.jooq4rest.condition;
-
-import java.lang.reflect.Field;
-
-record FieldAnnotationValue(Field field, String annotationValue) {
-}
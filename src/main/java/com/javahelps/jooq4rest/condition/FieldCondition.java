@@ -0,0 +1,34 @@
+package com.javahelps.jooq4rest.condition;
+
+import jakarta.annotation.Nullable;
+import org.jooq.Field;
+
+import java.lang.invoke.MethodHandle;
+
+/**
+ * An annotated field of a class with its column and operator resolved ahead of time.
+ *
+ * @param name     the name of the annotated field
+ * @param getter   the getter of the annotated field, typed as {@code (Object) -> Object}
+ * @param column   the column to compare the value of the field with
+ * @param operator the operator to compare the column with
+ */
+record FieldCondition(String name, MethodHandle getter, Field<Object> column, Operator operator) {
+
+    /**
+     * Reads the value of the field from the given object.
+     *
+     * @param object the object containing the annotated field
+     * @return the value of the field
+     */
+    @Nullable
+    Object get(Object object) {
+        try {
+            return (Object) this.getter.invokeExact(object);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to read " + this.name, e);
+        }
+    }
+}
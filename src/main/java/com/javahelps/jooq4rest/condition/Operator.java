@@ -0,0 +1,63 @@
+package com.javahelps.jooq4rest.condition;
+
+import org.jooq.Condition;
+import org.jooq.Field;
+
+import java.util.Collection;
+
+/**
+ * The comparison operators supported by the condition annotations.
+ */
+enum Operator {
+
+    EQUAL {
+        @Override
+        Condition apply(Field<Object> column, Object value) {
+            return column.eq(value);
+        }
+    },
+    GREATER_THAN_OR_EQUAL {
+        @Override
+        Condition apply(Field<Object> column, Object value) {
+            return column.ge(value);
+        }
+    },
+    LIKE_IGNORE_CASE {
+        @Override
+        Condition apply(Field<Object> column, Object value) {
+            return column.likeIgnoreCase("%" + value + "%");
+        }
+
+        @Override
+        Object bindValue(Field<Object> column, Object value) {
+            return "%" + value + "%";
+        }
+    },
+    IN {
+        @Override
+        Condition apply(Field<Object> column, Object value) {
+            return column.in((Collection<?>) value);
+        }
+    };
+
+    /**
+     * Creates the condition comparing the column with the value.
+     *
+     * @param column the column to compare
+     * @param value  the non-null value of the annotated field
+     * @return the condition
+     */
+    abstract Condition apply(Field<Object> column, Object value);
+
+    /**
+     * Converts a value of the annotated field to the value bound to the condition created by
+     * {@link #apply(Field, Object)}.
+     *
+     * @param column the column to compare
+     * @param value  the non-null value of the annotated field, or an element of it for {@link #IN}
+     * @return the bind value
+     */
+    Object bindValue(Field<Object> column, Object value) {
+        return column.getDataType().convert(value);
+    }
+}
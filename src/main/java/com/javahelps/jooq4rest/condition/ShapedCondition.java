@@ -0,0 +1,20 @@
+package com.javahelps.jooq4rest.condition;
+
+import org.jooq.Condition;
+
+import java.util.List;
+
+/**
+ * A condition together with its shape and bind values.
+ * <p>
+ * Conditions with the same shape render the same SQL and only differ in their bind values. This allows a repository
+ * to render the SQL of a shape once and reuse it with new bind values.
+ *
+ * @param condition  the JOOQ condition
+ * @param shape      the key identifying the SQL of the condition
+ * @param bindValues the bind values of the condition in the order they are rendered
+ */
+public record ShapedCondition(Condition condition,
+                              String shape,
+                              List<Object> bindValues) {
+}
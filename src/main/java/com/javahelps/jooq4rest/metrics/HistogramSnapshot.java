@@ -0,0 +1,15 @@
+package com.javahelps.jooq4rest.metrics;
+
+/**
+ * A snapshot of a {@link LatencyHistogram}. The percentiles are upper bounds within the precision of the histogram.
+ *
+ * @param count the number of recorded values
+ * @param mean  the mean of the recorded values
+ * @param max   the maximum recorded value
+ * @param p50   the median
+ * @param p90   the 90th percentile
+ * @param p99   the 99th percentile
+ * @param p999  the 99.9th percentile
+ */
+public record HistogramSnapshot(long count, double mean, long max, long p50, long p90, long p99, long p999) {
+}
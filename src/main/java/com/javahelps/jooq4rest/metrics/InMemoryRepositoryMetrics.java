@@ -0,0 +1,140 @@
+package com.javahelps.jooq4rest.metrics;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link RepositoryMetrics} keeping latency histograms, row counts and error counts per table and operation in
+ * memory.
+ * <p>
+ * A single instance can be shared by all repositories. Take snapshots to report the metrics, for example from a
+ * health endpoint or a scheduled logger.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * static final InMemoryRepositoryMetrics METRICS = new InMemoryRepositoryMetrics();
+ *
+ * @Override
+ * protected RepositoryMetrics metrics() {
+ *     return METRICS;
+ * }
+ * }
+ * </pre>
+ */
+public final class InMemoryRepositoryMetrics implements RepositoryMetrics {
+
+    private final Map<Key, Stats> stats = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordOperation(@Nonnull String table, @Nonnull RepositoryOperation operation, long durationNanos, long rows, boolean failed) {
+        Stats stats = stats(table, operation);
+        stats.latency.record(durationNanos);
+        stats.rows.add(rows);
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    @Override
+    public void recordTransaction(@Nonnull String table, @Nonnull RepositoryOperation operation, long durationNanos, boolean failed) {
+        Stats stats = stats(table, operation);
+        stats.transactions.record(durationNanos);
+        if (failed) {
+            stats.rollbacks.increment();
+        }
+    }
+
+    /**
+     * Takes a snapshot of the metrics of an operation on a table.
+     *
+     * @param table     the name of the table
+     * @param operation the operation
+     * @return the snapshot, or null if the operation was never recorded on the table
+     */
+    @Nullable
+    public OperationSnapshot snapshot(@Nonnull String table, @Nonnull RepositoryOperation operation) {
+        Stats stats = this.stats.get(new Key(table, operation));
+        return stats == null ? null : stats.snapshot();
+    }
+
+    /**
+     * Takes a snapshot of the metrics of all operations, sorted by table and operation.
+     *
+     * @return the snapshots by table and operation
+     */
+    @Nonnull
+    public Map<Key, OperationSnapshot> snapshot() {
+        Map<Key, OperationSnapshot> snapshots = new TreeMap<>();
+        this.stats.forEach((key, stats) -> snapshots.put(key, stats.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Removes all metrics.
+     */
+    public void reset() {
+        this.stats.clear();
+    }
+
+    @Nonnull
+    private Stats stats(@Nonnull String table, @Nonnull RepositoryOperation operation) {
+        Key key = new Key(table, operation);
+        // get before computeIfAbsent avoids locking the bin on the hot path
+        Stats stats = this.stats.get(key);
+        return stats != null ? stats : this.stats.computeIfAbsent(key, k -> new Stats());
+    }
+
+    /**
+     * The key of the metrics of an operation on a table.
+     *
+     * @param table     the name of the table
+     * @param operation the operation
+     */
+    public record Key(String table, RepositoryOperation operation) implements Comparable<Key> {
+
+        @Override
+        public int compareTo(Key other) {
+            int result = this.table.compareTo(other.table);
+            return result != 0 ? result : this.operation.compareTo(other.operation);
+        }
+    }
+
+    /**
+     * A snapshot of the metrics of an operation on a table.
+     *
+     * @param latency      the latencies of the operation in nanoseconds
+     * @param rows         the total number of rows returned or affected by the operation
+     * @param errors       the number of failed operations
+     * @param transactions the durations of the transactions of the operation in nanoseconds
+     * @param rollbacks    the number of rolled back transactions
+     */
+    public record OperationSnapshot(HistogramSnapshot latency,
+                                    long rows,
+                                    long errors,
+                                    HistogramSnapshot transactions,
+                                    long rollbacks) {
+    }
+
+    private static final class Stats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LatencyHistogram transactions = new LatencyHistogram();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder rollbacks = new LongAdder();
+
+        @Nonnull
+        private OperationSnapshot snapshot() {
+            return new OperationSnapshot(this.latency.snapshot(),
+                    this.rows.sum(),
+                    this.errors.sum(),
+                    this.transactions.snapshot(),
+                    this.rollbacks.sum());
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.javahelps.jooq4rest.metrics;
+
+import jakarta.annotation.Nonnull;
+
+/**
+ * Receives the measurements of repository operations.
+ * <p>
+ * Implementations must be thread-safe and cheap, because they are called on the thread of every operation. Override
+ * {@link com.javahelps.jooq4rest.repository.JooqRepository#metrics()} to enable metrics. Use
+ * {@link InMemoryRepositoryMetrics} to keep the metrics in memory, or implement this interface to report them to a
+ * metrics library, for example Micrometer:
+ *
+ * <pre>
+ * {@code
+ * public class MicrometerRepositoryMetrics implements RepositoryMetrics {
+ *     private final MeterRegistry registry;
+ *
+ *     @Override
+ *     public void recordOperation(String table, RepositoryOperation operation, long durationNanos, long rows, boolean failed) {
+ *         Tags tags = Tags.of("table", table, "operation", operation.name(), "outcome", failed ? "error" : "success");
+ *         this.registry.timer("jooq4rest.operation", tags).record(durationNanos, TimeUnit.NANOSECONDS);
+ *         this.registry.summary("jooq4rest.operation.rows", tags).record(rows);
+ *     }
+ *
+ *     @Override
+ *     public void recordTransaction(String table, RepositoryOperation operation, long durationNanos, boolean failed) {
+ *         Tags tags = Tags.of("table", table, "operation", operation.name(), "outcome", failed ? "error" : "success");
+ *         this.registry.timer("jooq4rest.transaction", tags).record(durationNanos, TimeUnit.NANOSECONDS);
+ *     }
+ * }
+ * }
+ * </pre>
+ */
+public interface RepositoryMetrics {
+
+    /**
+     * Records a completed operation.
+     *
+     * @param table         the name of the table of the repository
+     * @param operation     the operation
+     * @param durationNanos the duration of the operation in nanoseconds, including its transaction
+     * @param rows          the number of rows returned or affected by the operation, or zero if it failed
+     * @param failed        true if the operation threw an exception, false otherwise
+     */
+    void recordOperation(@Nonnull String table, @Nonnull RepositoryOperation operation, long durationNanos, long rows, boolean failed);
+
+    /**
+     * Records a transaction of an operation, from its start until it is committed or rolled back.
+     *
+     * @param table         the name of the table of the repository
+     * @param operation     the operation running the transaction
+     * @param durationNanos the duration of the transaction in nanoseconds
+     * @param failed        true if the transaction was rolled back because of an exception, false otherwise
+     */
+    void recordTransaction(@Nonnull String table, @Nonnull RepositoryOperation operation, long durationNanos, boolean failed);
+}
@@ -0,0 +1,44 @@
+package com.javahelps.jooq4rest.metrics;
+
+/**
+ * The operations of a repository reported to {@link RepositoryMetrics}.
+ */
+public enum RepositoryOperation {
+    EXISTS(false),
+    COUNT(false),
+    FIND_BY_ID(false),
+    FIND_ALL_BY_ID(false),
+    FIND_ALL(false),
+    STREAM_ALL(false),
+    INSERT(true),
+    UPDATE(true),
+    DELETE(true),
+    UPSERT(true),
+    UPSERT_ALL(true),
+    INSERT_ALL(true),
+    UPDATE_ALL(true),
+    DELETE_ALL(true),
+    QUERY(false),
+    /**
+     * The query counting the total number of elements of a {@link #QUERY}, if it is counted separately.
+     */
+    QUERY_COUNT(false),
+    STREAM(false),
+    SLICE(false),
+    SEEK(false);
+
+    private final boolean write;
+
+    RepositoryOperation(boolean write) {
+        this.write = write;
+    }
+
+    /**
+     * Checks if the operation writes to the database.
+     *
+     * @return true if the operation writes, false if it only reads
+     */
+    public boolean isWrite() {
+        return write;
+    }
+}
@@ -0,0 +1,52 @@
+package com.javahelps.jooq4rest.page;
+
+import jakarta.annotation.Nullable;
+
+import java.util.List;
+
+/**
+ * A record representing a keyset paginated response.
+ * <p>
+ * Unlike {@link Page}, a cursor page does not know its position in the full result. Instead, it carries opaque
+ * cursors pointing to the pages before and after it.
+ *
+ * @param <T>            the type of the content in the page
+ * @param content        the list of content items in the current page
+ * @param pageSize       the maximum number of items per page
+ * @param nextCursor     the cursor of the next page, or null if this is the last page
+ * @param previousCursor the cursor of the previous page, or null if this is the first page
+ */
+public record CursorPage<T>(List<T> content,
+                            int pageSize,
+                            @Nullable String nextCursor,
+                            @Nullable String previousCursor) {
+
+    /**
+     * Checks if there is a page after this one.
+     *
+     * @return true if there is a next page, false otherwise
+     */
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Checks if there is a page before this one.
+     *
+     * @return true if there is a previous page, false otherwise
+     */
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    /**
+     * Creates an empty cursor page with the specified page size.
+     *
+     * @param pageSize the number of items per page
+     * @param <T>      the type of the content in the page
+     * @return an empty cursor page
+     */
+    public static <T> CursorPage<T> empty(int pageSize) {
+        return new CursorPage<>(List.of(), pageSize, null, null);
+    }
+}
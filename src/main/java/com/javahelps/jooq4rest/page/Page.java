@@ -5,18 +5,33 @@ import java.util.List;
 /**
  * A record representing a paginated response.
  *
- * @param <T>           the type of the content in the page
- * @param content       the list of content items in the current page
- * @param pageNumber    the current page number (0-based)
- * @param pageSize      the number of items per page
- * @param totalPages    the total number of pages
- * @param totalElements the total number of elements across all pages
+ * @param <T>            the type of the content in the page
+ * @param content        the list of content items in the current page
+ * @param pageNumber     the current page number (0-based)
+ * @param pageSize       the number of items per page
+ * @param totalPages     the total number of pages
+ * @param totalElements  the total number of elements across all pages
+ * @param estimatedTotal whether the total number of elements and pages is estimated from database statistics
  */
 public record Page<T>(List<T> content,
                       int pageNumber,
                       int pageSize,
                       int totalPages,
-                      long totalElements) {
+                      long totalElements,
+                      boolean estimatedTotal) {
+
+    /**
+     * Creates a page with an exact total.
+     *
+     * @param content       the list of content items in the current page
+     * @param pageNumber    the current page number (0-based)
+     * @param pageSize      the number of items per page
+     * @param totalPages    the total number of pages
+     * @param totalElements the total number of elements across all pages
+     */
+    public Page(List<T> content, int pageNumber, int pageSize, int totalPages, long totalElements) {
+        this(content, pageNumber, pageSize, totalPages, totalElements, false);
+    }
 
     /**
      * Creates an empty page with the specified page size.
@@ -0,0 +1,41 @@
+package com.javahelps.jooq4rest.page;
+
+import java.util.List;
+
+/**
+ * A record representing a paginated response that does not know the total number of elements.
+ * <p>
+ * A slice is cheaper to compute than a {@link Page} because it only checks whether there is a next page instead of
+ * counting all elements.
+ *
+ * @param <T>        the type of the content in the slice
+ * @param content    the list of content items in the current slice
+ * @param pageNumber the current page number (0-based)
+ * @param pageSize   the number of items per page
+ * @param hasNext    true if there is a page after this one, false otherwise
+ */
+public record Slice<T>(List<T> content,
+                       int pageNumber,
+                       int pageSize,
+                       boolean hasNext) {
+
+    /**
+     * Checks if there is a page before this one.
+     *
+     * @return true if there is a previous page, false otherwise
+     */
+    public boolean hasPrevious() {
+        return pageNumber > 0;
+    }
+
+    /**
+     * Creates an empty slice with the specified page size.
+     *
+     * @param pageSize the number of items per page
+     * @param <T>      the type of the content in the slice
+     * @return an empty slice
+     */
+    public static <T> Slice<T> empty(int pageSize) {
+        return new Slice<>(List.of(), 0, pageSize, false);
+    }
+}
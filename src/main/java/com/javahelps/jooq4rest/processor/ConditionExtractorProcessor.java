@@ -0,0 +1,298 @@
+package com.javahelps.jooq4rest.processor;
+
+import com.javahelps.jooq4rest.annotation.Equal;
+import com.javahelps.jooq4rest.annotation.GreaterThanOrEqual;
+import com.javahelps.jooq4rest.annotation.In;
+import com.javahelps.jooq4rest.annotation.LikeIgnoreCase;
+import jakarta.annotation.Nullable;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.annotation.Annotation;
+import java.util.*;
+
+/**
+ * An annotation processor generating a reflection-free condition extractor for every class with fields annotated by
+ * {@link Equal}, {@link LikeIgnoreCase}, {@link In} or {@link GreaterThanOrEqual}.
+ * <p>
+ * For a class {@code QueryParams}, the processor generates {@code QueryParamsConditionExtractor} in the same package.
+ * It resolves the columns once in its constructor and builds the condition with plain field reads, which makes it
+ * suitable for native images. The reflective {@link com.javahelps.jooq4rest.condition.ConditionExtractor} produces the
+ * same conditions and remains available as a fallback.
+ * <p>
+ * A class with a field that cannot be read or has an unsupported type is reported with a warning, and no extractor is
+ * generated for it, so that the classes working with the reflective extractor keep compiling. Pass
+ * {@code -Ajooq4rest.strict=true} to the compiler to report them as errors instead.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * QueryParamsConditionExtractor extractor = new QueryParamsConditionExtractor(PERSON);
+ * Condition condition = extractor.extract(queryParams);
+ * }
+ * </pre>
+ */
+public class ConditionExtractorProcessor extends AbstractProcessor {
+
+    private static final String SUFFIX = "ConditionExtractor";
+    private static final String STRICT_OPTION = "jooq4rest.strict";
+    private static final List<Class<? extends Annotation>> SUPPORTED_ANNOTATIONS = List.of(Equal.class, LikeIgnoreCase.class, In.class, GreaterThanOrEqual.class);
+    private static final List<String> COMPARABLE_TYPES = List.of(String.class.getName(), Integer.class.getName(), Long.class.getName(), "java.time.LocalDate");
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> types = new LinkedHashSet<>();
+        for (Class<? extends Annotation> annotation : SUPPORTED_ANNOTATIONS) {
+            types.add(annotation.getCanonicalName());
+        }
+        return types;
+    }
+
+    @Override
+    public Set<String> getSupportedOptions() {
+        return Set.of(STRICT_OPTION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> types = new LinkedHashSet<>();
+        for (Class<? extends Annotation> annotation : SUPPORTED_ANNOTATIONS) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() == ElementKind.FIELD && element.getEnclosingElement() instanceof TypeElement type) {
+                    types.add(type);
+                }
+            }
+        }
+        for (TypeElement type : types) {
+            List<Column> columns = columns(type);
+            if (columns != null) {
+                generate(type, columns);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Resolves the columns of the annotated fields of the given type in their declaration order.
+     *
+     * @param type the type containing the annotated fields
+     * @return the columns, or null if any of the fields is invalid
+     */
+    @Nullable
+    private List<Column> columns(TypeElement type) {
+        List<Column> columns = new ArrayList<>();
+        boolean valid = true;
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            for (Class<? extends Annotation> annotation : SUPPORTED_ANNOTATIONS) {
+                Annotation instance = field.getAnnotation(annotation);
+                if (instance == null) {
+                    continue;
+                }
+                String accessor = accessor(type, field);
+                if (accessor == null) {
+                    report(field, type.getQualifiedName() + "#" + field.getSimpleName() + " must be a record component, a non-private field, or have a non-private getter");
+                    valid = false;
+                } else if (!isSupported(annotation, field.asType())) {
+                    report(field, type.getQualifiedName() + "#" + field.getSimpleName() + " has an unsupported type of " + field.asType());
+                    valid = false;
+                } else {
+                    columns.add(new Column(field.getSimpleName() + annotation.getSimpleName(), columnName(instance), annotation, erasure(field.asType()), accessor));
+                }
+            }
+        }
+        return valid ? columns : null;
+    }
+
+    @Nullable
+    private String accessor(TypeElement type, VariableElement field) {
+        String name = field.getSimpleName().toString();
+        if (type.getKind() == ElementKind.RECORD) {
+            return name + "()";
+        } else if (!field.getModifiers().contains(Modifier.PRIVATE)) {
+            return name;
+        }
+        String suffix = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            String methodName = method.getSimpleName().toString();
+            if ((methodName.equals("get" + suffix) || methodName.equals("is" + suffix))
+                    && method.getParameters().isEmpty()
+                    && !method.getModifiers().contains(Modifier.PRIVATE)
+                    && !method.getModifiers().contains(Modifier.STATIC)) {
+                return methodName + "()";
+            }
+        }
+        return null;
+    }
+
+    private boolean isSupported(Class<? extends Annotation> annotation, TypeMirror type) {
+        String erasure = erasure(type);
+        if (annotation == In.class) {
+            TypeMirror collection = processingEnv.getTypeUtils().erasure(
+                    Objects.requireNonNull(processingEnv.getElementUtils().getTypeElement(Collection.class.getName())).asType());
+            return processingEnv.getTypeUtils().isAssignable(processingEnv.getTypeUtils().erasure(type), collection);
+        } else if (annotation == LikeIgnoreCase.class) {
+            return erasure.equals(String.class.getName());
+        } else {
+            return COMPARABLE_TYPES.contains(erasure);
+        }
+    }
+
+    private String erasure(TypeMirror type) {
+        return processingEnv.getTypeUtils().erasure(type).toString();
+    }
+
+    private static String columnName(Annotation annotation) {
+        return switch (annotation) {
+            case Equal equal -> equal.value();
+            case GreaterThanOrEqual greaterThanOrEqual -> greaterThanOrEqual.value();
+            case LikeIgnoreCase likeIgnoreCase -> likeIgnoreCase.value();
+            case In in -> in.value();
+            default -> throw new IllegalArgumentException("Unsupported annotation type: " + annotation.annotationType().getCanonicalName());
+        };
+    }
+
+    private void generate(TypeElement type, List<Column> columns) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String className = flatName(type) + SUFFIX;
+        String qualifiedName = packageName.isEmpty() ? className : packageName + "." + className;
+        String dtoName = type.getQualifiedName().toString();
+        try (PrintWriter out = new PrintWriter(processingEnv.getFiler().createSourceFile(qualifiedName, type).openWriter())) {
+            if (!packageName.isEmpty()) {
+                out.println("package " + packageName + ";");
+                out.println();
+            }
+            out.println("/**");
+            out.println(" * Extracts JOOQ conditions from {@link " + dtoName + "} without reflection.");
+            out.println(" */");
+            out.println("@javax.annotation.processing.Generated(\"" + getClass().getName() + "\")");
+            out.println("public final class " + className + " {");
+            out.println();
+            for (Column column : columns) {
+                out.println("    private final " + fieldType(column) + " " + column.name() + ";");
+            }
+            out.println();
+            out.println("    /**");
+            out.println("     * Constructs a " + className + " for the given table.");
+            out.println("     *");
+            out.println("     * @param table the JOOQ table");
+            out.println("     */");
+            out.println("    public " + className + "(org.jooq.Table<?> table) {");
+            for (Column column : columns) {
+                String lookup = column.typed()
+                        ? "table.field(\"" + escape(column.column()) + "\", " + column.type() + ".class)"
+                        : "table.field(\"" + escape(column.column()) + "\")";
+                out.println("        this." + column.name() + " = column(" + lookup + ", \"" + escape(column.column()) + "\");");
+            }
+            out.println("    }");
+            out.println();
+            out.println("    /**");
+            out.println("     * Extracts the JOOQ condition from the annotated fields of the given object.");
+            out.println("     *");
+            out.println("     * @param object the object containing the annotated fields");
+            out.println("     * @return the JOOQ condition");
+            out.println("     */");
+            out.println("    public org.jooq.Condition extract(" + dtoName + " object) {");
+            out.println("        java.util.List<org.jooq.Condition> conditions = new java.util.ArrayList<>(" + columns.size() + ");");
+            for (Column column : columns) {
+                String value = column.name() + "Value";
+                if (column.annotation() == In.class) {
+                    out.println("        java.util.Collection<?> " + value + " = object." + column.accessor() + ";");
+                    out.println("        if (" + value + " != null && !" + value + ".isEmpty()) {");
+                } else {
+                    out.println("        " + column.type() + " " + value + " = object." + column.accessor() + ";");
+                    out.println("        if (" + value + " != null) {");
+                }
+                out.println("            conditions.add(" + condition(column, value) + ");");
+                out.println("        }");
+            }
+            out.println("        return org.jooq.impl.DSL.and(conditions);");
+            out.println("    }");
+            out.println();
+            out.println("    private static <T> org.jooq.Field<T> column(org.jooq.Field<T> field, String name) {");
+            out.println("        if (field == null) {");
+            out.println("            throw new IllegalArgumentException(\"" + escape(dtoName) + " refers to an unknown column \" + name);");
+            out.println("        }");
+            out.println("        return field;");
+            out.println("    }");
+            out.println("}");
+        } catch (IOException e) {
+            report(type, "Failed to generate " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private static String fieldType(Column column) {
+        return column.typed() ? "org.jooq.Field<" + column.type() + ">" : "org.jooq.Field<?>";
+    }
+
+    private static String condition(Column column, String value) {
+        String field = "this." + column.name();
+        if (column.annotation() == Equal.class) {
+            return field + ".eq(" + value + ")";
+        } else if (column.annotation() == GreaterThanOrEqual.class) {
+            return field + ".ge(" + value + ")";
+        } else if (column.annotation() == LikeIgnoreCase.class) {
+            return field + ".likeIgnoreCase(\"%\" + " + value + " + \"%\")";
+        } else {
+            return field + ".in(" + value + ")";
+        }
+    }
+
+    private static String flatName(TypeElement type) {
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        Element enclosing = type.getEnclosingElement();
+        while (enclosing instanceof TypeElement enclosingType) {
+            name.insert(0, enclosingType.getSimpleName() + "_");
+            enclosing = enclosingType.getEnclosingElement();
+        }
+        return name.toString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /**
+     * Reports a class the extractor cannot be generated for, as an error in strict mode and as a warning otherwise.
+     */
+    private void report(Element element, String message) {
+        if (Boolean.parseBoolean(processingEnv.getOptions().get(STRICT_OPTION))) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+        } else {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.WARNING,
+                    message + ", no condition extractor is generated for it", element);
+        }
+    }
+
+    /**
+     * An annotated field resolved to a column of the generated extractor.
+     *
+     * @param name       the name of the field in the generated extractor
+     * @param column     the column name in the database
+     * @param annotation the annotation defining the operator
+     * @param type       the erased type of the annotated field
+     * @param accessor   the expression reading the annotated field from the object
+     */
+    private record Column(String name, String column, Class<? extends Annotation> annotation, String type, String accessor) {
+
+        /**
+         * Checks if the column is looked up with the type of the annotated field, like the reflective extractor does.
+         *
+         * @return true if the column is typed, false otherwise
+         */
+        boolean typed() {
+            return annotation == Equal.class || annotation == GreaterThanOrEqual.class;
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.javahelps.jooq4rest.repository;
+
+import com.javahelps.jooq4rest.condition.ShapedCondition;
+import com.javahelps.jooq4rest.page.CursorPage;
+import com.javahelps.jooq4rest.page.Page;
+import com.javahelps.jooq4rest.page.Slice;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jooq.Condition;
+import org.jooq.OrderField;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletionStage;
+import java.util.function.Consumer;
+
+/**
+ * The non-blocking counterpart of {@link Repository}. Each operation returns immediately and completes its stage
+ * with the result of the corresponding {@link Repository} operation, or exceptionally with its exception.
+ *
+ * @param <E> the type of the entity record
+ * @param <P> the type of the projection record
+ * @param <I> the type of the entity identifier
+ * @see Repository
+ */
+public interface AsyncRepository<E extends Record, P extends Record, I> {
+
+    /**
+     * Checks if an entity with the given ID exists.
+     *
+     * @param id the entity ID
+     * @return a stage completed with true if the entity exists, false otherwise
+     */
+    @Nonnull
+    CompletionStage<Boolean> exists(@Nonnull I id);
+
+    /**
+     * Counts the total number of entities.
+     *
+     * @return a stage completed with the total number of entities
+     */
+    @Nonnull
+    CompletionStage<Long> count();
+
+    /**
+     * Finds an entity by its ID.
+     *
+     * @param id the entity ID
+     * @return a stage completed with an optional containing the entity if found, or empty if not found
+     */
+    @Nonnull
+    CompletionStage<Optional<E>> findById(@Nonnull I id);
+
+    /**
+     * Finds the entities with the given IDs.
+     *
+     * @param ids the entity IDs
+     * @return a stage completed with a map of the found entities by their IDs, in the order of the given IDs
+     */
+    @Nonnull
+    CompletionStage<Map<I, E>> findAllById(@Nonnull Collection<I> ids);
+
+    /**
+     * Finds all entities.
+     *
+     * @return a stage completed with a list of all entities
+     */
+    @Nonnull
+    CompletionStage<List<E>> findAll();
+
+    /**
+     * Streams all entities to the given action without loading them into memory at once.
+     * <p>
+     * The action is called on the thread executing the operation, which holds a database cursor until the stream is
+     * consumed.
+     *
+     * @param action the action to perform on each entity
+     * @return a stage completed when all entities are consumed
+     */
+    @Nonnull
+    CompletionStage<Void> streamAll(@Nonnull Consumer<? super E> action);
+
+    /**
+     * Inserts a new entity.
+     *
+     * @param entity the entity to insert
+     * @return a stage completed with the ID of the inserted entity
+     */
+    @Nonnull
+    CompletionStage<I> insert(@Nonnull E entity);
+
+    /**
+     * Updates an existing entity.
+     *
+     * @param entity the entity to update
+     * @return a stage completed with the number of rows affected
+     */
+    @Nonnull
+    CompletionStage<Integer> update(@Nonnull E entity);
+
+    /**
+     * Deletes an entity by its ID.
+     *
+     * @param id the entity ID
+     * @return a stage completed with the number of rows affected
+     */
+    @Nonnull
+    CompletionStage<Integer> delete(@Nonnull I id);
+
+    /**
+     * Inserts an entity or updates it if an entity with the same key already exists, in a single atomic statement.
+     *
+     * @param entity the entity to insert or update
+     * @return a stage completed with the number of rows affected
+     */
+    @Nonnull
+    CompletionStage<Integer> upsert(@Nonnull E entity);
+
+    /**
+     * Inserts entities or updates the ones with existing keys in batches.
+     *
+     * @param entities the entities to insert or update
+     * @return a stage completed with the number of rows affected
+     */
+    @Nonnull
+    CompletionStage<Integer> upsertAll(@Nonnull Collection<E> entities);
+
+    /**
+     * Inserts new entities in batches.
+     *
+     * @param entities the entities to insert
+     * @return a stage completed with the IDs of the inserted entities in the order of the given entities
+     */
+    @Nonnull
+    CompletionStage<List<I>> insertAll(@Nonnull Collection<E> entities);
+
+    /**
+     * Updates existing entities in batches.
+     *
+     * @param entities the entities to update
+     * @return a stage completed with the number of rows affected
+     */
+    @Nonnull
+    CompletionStage<Integer> updateAll(@Nonnull Collection<E> entities);
+
+    /**
+     * Deletes entities by their IDs in batches.
+     *
+     * @param ids the entity IDs
+     * @return a stage completed with the number of rows affected
+     */
+    @Nonnull
+    CompletionStage<Integer> deleteAll(@Nonnull Collection<I> ids);
+
+    /**
+     * Queries entities with pagination and sorting.
+     *
+     * @param condition  the condition to filter entities
+     * @param order      the order field to sort entities
+     * @param pageNumber the page number (0-based)
+     * @param pageSize   the number of items per page
+     * @return a stage completed with a page of projection records
+     */
+    @Nonnull
+    CompletionStage<Page<P>> query(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize);
+
+    /**
+     * Queries entities with pagination and sorting using a shaped condition.
+     *
+     * @param condition  the shaped condition to filter entities
+     * @param order      the order field to sort entities
+     * @param pageNumber the page number (0-based)
+     * @param pageSize   the number of items per page
+     * @return a stage completed with a page of projection records
+     */
+    @Nonnull
+    CompletionStage<Page<P>> query(@Nonnull ShapedCondition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize);
+
+    /**
+     * Streams entities matching the condition in the given order to the given action without loading them into
+     * memory at once.
+     * <p>
+     * The action is called on the thread executing the operation, which holds a database cursor until the stream is
+     * consumed.
+     *
+     * @param condition the condition to filter entities
+     * @param order     the order field to sort entities
+     * @param action    the action to perform on each projection record
+     * @return a stage completed when all projection records are consumed
+     */
+    @Nonnull
+    CompletionStage<Void> stream(@Nonnull Condition condition, @Nonnull OrderField<?> order, @Nonnull Consumer<? super P> action);
+
+    /**
+     * Queries entities with pagination and sorting without counting the total number of entities.
+     *
+     * @param condition  the condition to filter entities
+     * @param order      the order field to sort entities
+     * @param pageNumber the page number (0-based)
+     * @param pageSize   the number of items per page
+     * @return a stage completed with a slice of projection records
+     */
+    @Nonnull
+    CompletionStage<Slice<P>> slice(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize);
+
+    /**
+     * Queries entities with keyset pagination and sorting.
+     *
+     * @param condition the condition to filter entities
+     * @param order     the order field to sort entities
+     * @param cursor    the cursor of the page to fetch, or null to fetch the first page
+     * @param pageSize  the number of items per page
+     * @return a stage completed with a cursor page of projection records
+     */
+    @Nonnull
+    CompletionStage<CursorPage<P>> seek(@Nonnull Condition condition, @Nonnull OrderField<?> order, @Nullable String cursor, int pageSize);
+
+}
@@ -0,0 +1,26 @@
+package com.javahelps.jooq4rest.repository;
+
+/**
+ * Strategies to count the total number of elements of a paginated query.
+ */
+public enum CountStrategy {
+
+    /**
+     * Counts the elements with a separate {@code SELECT COUNT(*)} statement after fetching the page.
+     */
+    SEPARATE_QUERY,
+
+    /**
+     * Counts the elements with a {@code COUNT(*) OVER ()} window in the page select, fetching the page and the total
+     * in a single round trip. A separate count is only executed when the requested page is out of range.
+     */
+    WINDOW_FUNCTION,
+
+    /**
+     * Estimates the total from the statistics of the database through {@link JooqRepository#rowCountEstimator()},
+     * marking the page with {@link com.javahelps.jooq4rest.page.Page#estimatedTotal()}. The total is exact without any
+     * count when the page is the last one, and counted with a separate {@code SELECT COUNT(*)} statement when there is
+     * no estimate. {@link JooqRepository#count()} returns the estimate as well.
+     */
+    ESTIMATED
+}
@@ -0,0 +1,209 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Batches the concurrent {@link Repository#findById(Object)} calls of a repository into
+ * {@link Repository#findAllById(java.util.Collection)} queries.
+ * <p>
+ * The IDs requested within the window after the first request of a batch are collected and queried together with a
+ * single {@code IN} list, completing the future of each request with its entity. A batch is queried earlier when it
+ * reaches the maximum batch size. The batches are queried on an executor, a new virtual thread per batch by default, so
+ * neither the callers nor the timer thread of the batcher wait for a query, and a slow batch does not delay the next
+ * ones. Concurrent requests of the same ID share a single lookup. A burst of lookups therefore holds a connection per
+ * batch instead of one per request.
+ * <p>
+ * A failing batch fails the futures of all its requests. Close the batcher to query the pending requests and stop the
+ * timer thread.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * FindByIdBatcher<Person, Long> batcher = new FindByIdBatcher<>(new PersonRepository(context), Duration.ofMillis(2), 100);
+ * batcher.findById(1L).thenAccept(person -> ...);
+ * }
+ * </pre>
+ *
+ * @param <E> the type of the entity record
+ * @param <I> the type of the entity identifier
+ */
+public final class FindByIdBatcher<E extends Record, I> implements AutoCloseable {
+
+    private static final ThreadFactory VIRTUAL_THREADS = Thread.ofVirtual().name("jooq4rest-batch-", 0).factory();
+
+    private final Repository<E, ?, I> repository;
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService timer;
+    private final Executor executor;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private Map<I, CompletableFuture<Optional<E>>> pending = new LinkedHashMap<>();
+    @Nullable
+    private ScheduledFuture<?> scheduledFlush;
+    private boolean closed;
+
+    /**
+     * Constructs a FindByIdBatcher collecting the requests of the given window into batches of up to the given size.
+     *
+     * @param repository   the repository
+     * @param window       the time to wait for more requests after the first request of a batch
+     * @param maxBatchSize the maximum number of distinct IDs of a batch
+     */
+    public FindByIdBatcher(@Nonnull Repository<E, ?, I> repository, @Nonnull Duration window, int maxBatchSize) {
+        this(repository, window, maxBatchSize, command -> VIRTUAL_THREADS.newThread(command).start());
+    }
+
+    /**
+     * Constructs a FindByIdBatcher querying the batches on the given executor.
+     *
+     * @param repository   the repository
+     * @param window       the time to wait for more requests after the first request of a batch
+     * @param maxBatchSize the maximum number of distinct IDs of a batch
+     * @param executor     the executor querying the batches
+     */
+    public FindByIdBatcher(@Nonnull Repository<E, ?, I> repository, @Nonnull Duration window, int maxBatchSize, @Nonnull Executor executor) {
+        if (window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive: " + window);
+        }
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        this.repository = Objects.requireNonNull(repository);
+        this.windowNanos = window.toNanos();
+        this.maxBatchSize = maxBatchSize;
+        this.executor = Objects.requireNonNull(executor);
+        this.timer = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform()
+                .name("jooq4rest-batcher-", 0)
+                .daemon(true)
+                .factory());
+    }
+
+    /**
+     * Finds an entity by its ID in the next batch.
+     *
+     * @param id the ID of the entity
+     * @return a future of the entity, or of an empty optional if it does not exist
+     */
+    @Nonnull
+    public CompletableFuture<Optional<E>> findById(@Nonnull I id) {
+        Objects.requireNonNull(id);
+        this.requests.increment();
+        CompletableFuture<Optional<E>> future;
+        Map<I, CompletableFuture<Optional<E>>> batch = null;
+        synchronized (this) {
+            if (this.closed) {
+                throw new IllegalStateException("Batcher is closed");
+            }
+            future = this.pending.get(id);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                this.pending.put(id, future);
+                if (this.pending.size() >= this.maxBatchSize) {
+                    batch = drain();
+                } else if (this.pending.size() == 1) {
+                    this.scheduledFlush = this.timer.schedule(this::flush, this.windowNanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (batch != null) {
+            submit(batch);
+        }
+        // A copy so that a caller cancelling its future does not cancel the lookup of the other callers
+        return future.copy();
+    }
+
+    /**
+     * Returns the number of requests made to this batcher.
+     *
+     * @return the number of requests
+     */
+    public long requests() {
+        return this.requests.sum();
+    }
+
+    /**
+     * Returns the number of batches queried by this batcher.
+     *
+     * @return the number of batches
+     */
+    public long batches() {
+        return this.batches.sum();
+    }
+
+    /**
+     * Submits the pending requests to the executor and stops the timer thread. Requests made after closing are
+     * rejected.
+     */
+    @Override
+    public void close() {
+        Map<I, CompletableFuture<Optional<E>>> batch;
+        synchronized (this) {
+            if (this.closed) {
+                return;
+            }
+            this.closed = true;
+            batch = drain();
+        }
+        submit(batch);
+        // Waits for a flush that drained its batch before closing to submit it
+        this.timer.close();
+    }
+
+    private void flush() {
+        Map<I, CompletableFuture<Optional<E>>> batch;
+        synchronized (this) {
+            batch = drain();
+        }
+        submit(batch);
+    }
+
+    /**
+     * Takes the pending requests as a batch. Must be called while holding the lock of this batcher.
+     */
+    @Nonnull
+    private Map<I, CompletableFuture<Optional<E>>> drain() {
+        Map<I, CompletableFuture<Optional<E>>> batch = this.pending;
+        this.pending = new LinkedHashMap<>();
+        if (this.scheduledFlush != null) {
+            this.scheduledFlush.cancel(false);
+            this.scheduledFlush = null;
+        }
+        return batch;
+    }
+
+    private void submit(@Nonnull Map<I, CompletableFuture<Optional<E>>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            this.executor.execute(() -> load(batch));
+        } catch (RejectedExecutionException e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+        }
+    }
+
+    private void load(@Nonnull Map<I, CompletableFuture<Optional<E>>> batch) {
+        this.batches.increment();
+        Map<I, E> entities;
+        try {
+            entities = this.repository.findAllById(batch.keySet());
+        } catch (RuntimeException | Error e) {
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            if (e instanceof Error error) {
+                throw error;
+            }
+            return;
+        }
+        batch.forEach((id, future) -> future.complete(Optional.ofNullable(entities.get(id))));
+    }
+}
@@ -0,0 +1,36 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Schema;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.OptionalLong;
+
+/**
+ * Estimates the rows of a whole H2 table from {@code INFORMATION_SCHEMA.TABLES}.
+ */
+final class H2RowCountEstimator implements RowCountEstimator {
+
+    static final H2RowCountEstimator INSTANCE = new H2RowCountEstimator();
+
+    private H2RowCountEstimator() {
+    }
+
+    @Nonnull
+    @Override
+    public OptionalLong estimate(@Nonnull DSLContext context, @Nonnull Table<?> table, @Nonnull Condition condition) {
+        if (!condition.equals(DSL.noCondition())) {
+            return OptionalLong.empty();
+        }
+        Schema schema = table.getSchema();
+        Long estimate = context.resultQuery("SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES "
+                                + "WHERE TABLE_SCHEMA = COALESCE(?, CURRENT_SCHEMA) AND TABLE_NAME = ?",
+                        schema == null ? null : schema.getName(), table.getName())
+                .fetchOptional(0, Long.class)
+                .orElse(null);
+        return estimate == null ? OptionalLong.empty() : OptionalLong.of(estimate);
+    }
+}
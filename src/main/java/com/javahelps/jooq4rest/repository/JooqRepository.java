@@ -1,13 +1,31 @@
 package com.javahelps.jooq4rest.repository;
 
+import com.javahelps.jooq4rest.cache.EntityCache;
+import com.javahelps.jooq4rest.condition.ShapedCondition;
+import com.javahelps.jooq4rest.metrics.RepositoryMetrics;
+import com.javahelps.jooq4rest.metrics.RepositoryOperation;
+import com.javahelps.jooq4rest.page.CursorPage;
 import com.javahelps.jooq4rest.page.Page;
+import com.javahelps.jooq4rest.page.Slice;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.jooq.*;
+import org.jooq.conf.ParamType;
+import org.jooq.conf.Settings;
+import org.jooq.conf.StatementType;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
 
 import java.lang.Record;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+import java.util.stream.Stream;
 
 /**
  * An base class for JOOQ repositories providing common CRUD operations.
@@ -18,12 +36,21 @@ import java.util.Optional;
  */
 public class JooqRepository<E extends Record, P extends Record, I> implements Repository<E, P, I> {
 
+    private static final Field<Integer> TOTAL_COUNT = DSL.count().over().as("jooq4rest_total_count");
+    /**
+     * The reads executing a single statement, which need no transaction to see a consistent snapshot.
+     */
+    private static final Set<RepositoryOperation> SINGLE_STATEMENT_READS = EnumSet.of(RepositoryOperation.EXISTS,
+            RepositoryOperation.FIND_BY_ID,
+            RepositoryOperation.COUNT);
+
     private final DSLContext context;
     protected final Table<? extends UpdatableRecord<?>> table;
     private final Field<I> idField;
     protected final Class<E> entityClass;
     protected final Class<P> projectionClass;
     private final TransactionMode transactionMode;
+    private final Map<DSLContext, DSLContext> listeningContexts = new ConcurrentHashMap<>();
 
     /**
      * Constructs an JooqRepository with the specified table, ID field, entity class, and projection class.
@@ -68,11 +95,14 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
 
     @Override
     public final boolean exists(@Nonnull I id) {
-        if (this.transactionMode.isTransactionalRead()) {
-            return this.context.transactionResult(configuration -> doExists(id));
-        } else {
-            return doExists(id);
-        }
+        return measure(RepositoryOperation.EXISTS, () -> {
+            // The cache must not see the uncommitted rows of a unit of work
+            EntityCache<I, E> cache = unitOfWork() == null ? entityCache() : null;
+            if (cache != null && cache.peek(id) != null) {
+                return true;
+            }
+            return read(RepositoryOperation.EXISTS, context -> doExists(context, id));
+        }, exists -> exists ? 1 : 0);
     }
 
     /**
@@ -80,24 +110,22 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
      * <p>
      * Override this method to provide a custom implementation.
      *
-     * @param id the ID of the entity to check for existence
+     * @param context the DSL context
+     * @param id      the ID of the entity to check for existence
      * @return true if the entity exists, false otherwise
      */
-    protected boolean doExists(@Nonnull I id) {
-        return this.context.fetchExists(this.table, this.idField.eq(id));
+    protected boolean doExists(@Nonnull DSLContext context, @Nonnull I id) {
+        return context.fetchExists(this.table, this.idField.eq(id));
     }
 
     @Override
     public final long count() {
-        if (this.transactionMode.isTransactionalRead()) {
-            return context.transactionResult(configuration -> doCount(context));
-        } else {
-            return doCount(context);
-        }
+        return measure(RepositoryOperation.COUNT, () -> read(RepositoryOperation.COUNT, context -> doCount(context)), count -> 1);
     }
 
     /**
-     * Counts the number of records in the table.
+     * Counts the number of records in the table, or estimates it if the count strategy is
+     * {@link CountStrategy#ESTIMATED}.
      * <p>
      * Override this method to provide a custom implementation.
      *
@@ -105,17 +133,30 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
      * @return the count of records
      */
     protected long doCount(@Nonnull DSLContext context) {
+        if (countStrategy() == CountStrategy.ESTIMATED) {
+            OptionalLong estimate = rowCountEstimator().estimate(context, this.table, DSL.noCondition());
+            if (estimate.isPresent()) {
+                return estimate.getAsLong();
+            }
+        }
         return context.fetchCount(this.table);
     }
 
     @Nonnull
     @Override
     public final Optional<E> findById(@Nonnull I id) {
-        if (this.transactionMode.isTransactionalRead()) {
-            return this.context.transactionResult(configuration -> doFindById(id));
-        } else {
-            return doFindById(id);
-        }
+        return measure(RepositoryOperation.FIND_BY_ID, () -> {
+            EntityCache<I, E> cache = unitOfWork() == null ? entityCache() : null;
+            if (cache != null) {
+                return Optional.ofNullable(cache.get(id, key -> loadById(key).orElse(null)));
+            }
+            return loadById(id);
+        }, entity -> entity.isPresent() ? 1 : 0);
+    }
+
+    @Nonnull
+    private Optional<E> loadById(@Nonnull I id) {
+        return read(RepositoryOperation.FIND_BY_ID, context -> doFindById(context, id));
     }
 
     /**
@@ -123,49 +164,129 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
      * <p>
      * Override this method to provide a custom implementation.
      *
-     * @param id the ID of the entity to find
+     * @param context the DSL context
+     * @param id      the ID of the entity to find
      * @return an Optional containing the entity if found, or empty if not found
      */
     @Nonnull
-    protected Optional<E> doFindById(@Nonnull I id) {
-        return select(this.context)
+    protected Optional<E> doFindById(@Nonnull DSLContext context, @Nonnull I id) {
+        return select(context)
                 .from(this.table)
                 .where(this.idField.eq(id))
                 .fetchOptionalInto(this.entityClass);
     }
 
+    @Nonnull
+    @Override
+    public final Map<I, E> findAllById(@Nonnull Collection<I> ids) {
+        return measure(RepositoryOperation.FIND_ALL_BY_ID, () -> read(RepositoryOperation.FIND_ALL_BY_ID, context -> doFindAllById(context, ids)), Map::size);
+    }
+
     /**
-     * Finds all entities in the table.
+     * Finds the entities with the given IDs.
+     * <p>
+     * The IDs are queried in chunks of {@link #inListSize(SQLDialect)} using {@code IN} lists padded to the next
+     * power of two. Padding keeps the number of distinct statements small, so the driver and the database can reuse
+     * prepared statements and execution plans.
      * <p>
      * Override this method to provide a custom implementation.
      *
-     * @return a list of all entities
+     * @param context the DSL context
+     * @param ids     the IDs of the entities to find
+     * @return a map of the found entities by their IDs, in the order of the given IDs
      */
+    @Nonnull
+    protected Map<I, E> doFindAllById(@Nonnull DSLContext context, @Nonnull Collection<I> ids) {
+        List<I> distinctIds = ids.stream().distinct().toList();
+        int inListSize = inListSize(context.dialect());
+        Map<I, E> entities = new HashMap<>();
+        for (int i = 0; i < distinctIds.size(); i += inListSize) {
+            List<I> chunk = distinctIds.subList(i, Math.min(distinctIds.size(), i + inListSize));
+            Result<?> result = select(context)
+                    .from(this.table)
+                    .where(this.idField.in(padToPowerOfTwo(chunk)))
+                    .fetch();
+            for (org.jooq.Record record : result) {
+                entities.put(record.get(this.idField), record.into(this.entityClass));
+            }
+        }
+        Map<I, E> orderedEntities = new LinkedHashMap<>();
+        for (I id : distinctIds) {
+            E entity = entities.get(id);
+            if (entity != null) {
+                orderedEntities.put(id, entity);
+            }
+        }
+        return orderedEntities;
+    }
+
+    @Nonnull
+    private static <T> List<T> padToPowerOfTwo(@Nonnull List<T> values) {
+        int size = Integer.highestOneBit(values.size());
+        if (size == values.size()) {
+            return values;
+        }
+        List<T> padded = new ArrayList<>(size << 1);
+        padded.addAll(values);
+        T last = values.getLast();
+        while (padded.size() < size << 1) {
+            padded.add(last);
+        }
+        return padded;
+    }
+
     @Nonnull
     @Override
     public final List<E> findAll() {
-        if (this.transactionMode.isTransactionalRead()) {
-            return this.context.transactionResult(configuration -> doFindAll());
-        } else {
-            return doFindAll();
-        }
+        return measure(RepositoryOperation.FIND_ALL, () -> read(RepositoryOperation.FIND_ALL, context -> doFindAll(context)), List::size);
     }
 
+    /**
+     * Finds all entities in the table.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context the DSL context
+     * @return a list of all entities
+     */
     @Nonnull
-    protected List<E> doFindAll() {
-        return select(this.context)
+    protected List<E> doFindAll(@Nonnull DSLContext context) {
+        return select(context)
                 .from(table)
                 .fetchInto(this.entityClass);
     }
 
+    @Nonnull
+    @Override
+    public final Stream<E> streamAll() {
+        return measureStream(RepositoryOperation.STREAM_ALL, () -> stream(RepositoryOperation.STREAM_ALL, this::doStreamAll));
+    }
+
+    /**
+     * Streams all entities in the table using a database cursor.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context the DSL context
+     * @return a stream of all entities
+     */
+    @Nonnull
+    protected Stream<E> doStreamAll(@Nonnull DSLContext context) {
+        return select(context)
+                .from(table)
+                .fetchSize(fetchSize())
+                .fetchStreamInto(this.entityClass);
+    }
+
     @Nonnull
     @Override
     public final I insert(@Nonnull E entity) {
-        if (this.transactionMode.isTransactionalWrite()) {
-            return this.context.transactionResult(configuration -> doInsert(entity));
-        } else {
-            return doInsert(entity);
-        }
+        return measure(RepositoryOperation.INSERT, () -> {
+            I id;
+            id = write(RepositoryOperation.INSERT, context -> doInsert(context, entity));
+            invalidate(List.of(id));
+            return id;
+        }, id -> 1);
     }
 
     /**
@@ -173,24 +294,27 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
      * <p>
      * Override this method to provide a custom implementation.
      *
-     * @param entity the entity to insert
+     * @param context the DSL context
+     * @param entity  the entity to insert
      * @return the ID of the inserted entity
      */
     @Nonnull
-    protected I doInsert(@Nonnull E entity) {
-        return Objects.requireNonNull(this.context.insertInto(this.table)
-                .set(toRecord(this.context, entity))
+    protected I doInsert(@Nonnull DSLContext context, @Nonnull E entity) {
+        return Objects.requireNonNull(context.insertInto(this.table)
+                .set(toRecord(context, entity))
                 .returning(this.idField)
                 .fetchOne(this.idField));
     }
 
     @Override
     public final int update(@Nonnull E entity) {
-        if (this.transactionMode.isTransactionalWrite()) {
-            return this.context.transactionResult(configuration -> doUpdate(entity));
-        } else {
-            return doUpdate(entity);
-        }
+        return measure(RepositoryOperation.UPDATE, () -> {
+            try {
+                return write(RepositoryOperation.UPDATE, context -> doUpdate(context, entity));
+            } finally {
+                invalidateEntities(List.of(entity));
+            }
+        }, Integer::longValue);
     }
 
     /**
@@ -198,14 +322,15 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
      * <p>
      * Override this method to provide a custom implementation.
      *
-     * @param entity the entity to update
+     * @param context the DSL context
+     * @param entity  the entity to update
      * @return the number of affected rows
      */
-    protected int doUpdate(@Nonnull E entity) {
-        UpdatableRecord<?> record = toRecord(this.context, entity);
+    protected int doUpdate(@Nonnull DSLContext context, @Nonnull E entity) {
+        UpdatableRecord<?> record = toRecord(context, entity);
         I id = record.get(this.idField);
         record.reset(this.idField);
-        return this.context.update(this.table)
+        return context.update(this.table)
                 .set(record)
                 .where(this.idField.eq(id))
                 .execute();
@@ -213,11 +338,13 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
 
     @Override
     public final int delete(@Nonnull I id) {
-        if (this.transactionMode.isTransactionalWrite()) {
-            return this.context.transactionResult(configuration -> doDelete(id));
-        } else {
-            return doDelete(id);
-        }
+        return measure(RepositoryOperation.DELETE, () -> {
+            try {
+                return write(RepositoryOperation.DELETE, context -> doDelete(context, id));
+            } finally {
+                invalidate(List.of(id));
+            }
+        }, Integer::longValue);
     }
 
     /**
@@ -225,30 +352,548 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
      * <p>
      * Override this method to provide a custom implementation.
      *
-     * @param id the ID of the entity to delete
+     * @param context the DSL context
+     * @param id      the ID of the entity to delete
      * @return the number of affected rows
      */
-    protected int doDelete(@Nonnull I id) {
-        return this.context.deleteFrom(this.table)
+    protected int doDelete(@Nonnull DSLContext context, @Nonnull I id) {
+        return context.deleteFrom(this.table)
                 .where(this.idField.eq(id))
                 .execute();
     }
 
+    @Override
+    public final int upsert(@Nonnull E entity) {
+        return measure(RepositoryOperation.UPSERT, () -> {
+            try {
+                return write(RepositoryOperation.UPSERT, context -> doUpsert(context, entity));
+            } finally {
+                invalidateUpserted(List.of(entity));
+            }
+        }, Integer::longValue);
+    }
+
+    /**
+     * Inserts an entity into the table or updates the existing row with the same {@link #upsertKeys()}.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context the DSL context
+     * @param entity  the entity to insert or update
+     * @return the number of affected rows
+     */
+    protected int doUpsert(@Nonnull DSLContext context, @Nonnull E entity) {
+        return upsertQuery(context, List.of(entity)).execute();
+    }
+
+    @Override
+    public final int upsertAll(@Nonnull Collection<E> entities) {
+        return measure(RepositoryOperation.UPSERT_ALL, () -> {
+            int affectedRows = 0;
+            for (List<E> chunk : chunks(entities)) {
+                try {
+                    affectedRows += write(RepositoryOperation.UPSERT_ALL, context -> doUpsertAll(context, chunk));
+                } finally {
+                    invalidateUpserted(chunk);
+                }
+            }
+            return affectedRows;
+        }, Integer::longValue);
+    }
+
+    /**
+     * Inserts a chunk of entities into the table or updates the existing rows with the same {@link #upsertKeys()},
+     * using a single multi-row statement.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context  the DSL context
+     * @param entities the entities to insert or update, at most {@link #batchSize()} of them
+     * @return the number of affected rows
+     */
+    protected int doUpsertAll(@Nonnull DSLContext context, @Nonnull List<E> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+        return upsertQuery(context, entities).execute();
+    }
+
+    /**
+     * Creates an {@code INSERT .. ON CONFLICT DO UPDATE} statement, which jOOQ renders as the native upsert of the
+     * dialect, such as {@code MERGE} or {@code ON DUPLICATE KEY UPDATE}.
+     */
+    @Nonnull
+    private Query upsertQuery(@Nonnull DSLContext context, @Nonnull List<E> entities) {
+        List<Field<?>> keys = upsertKeys();
+        InsertSetStep<?> insert = context.insertInto(this.table);
+        InsertSetMoreStep<?> values = null;
+        Map<Field<?>, Field<?>> updates = new LinkedHashMap<>();
+        for (E entity : entities) {
+            UpdatableRecord<?> record = toRecord(context, entity);
+            for (Field<?> field : record.fields()) {
+                if (record.changed(field) && !keys.contains(field)) {
+                    updates.put(field, DSL.excluded(field));
+                }
+            }
+            values = values == null ? insert.set(record) : values.newRecord().set(record);
+        }
+        Objects.requireNonNull(values, "No entities to upsert");
+        if (updates.isEmpty()) {
+            return values.onConflict(keys).doNothing();
+        }
+        return values.onConflict(keys).doUpdate().set(updates);
+    }
+
     @Nonnull
     @Override
-    public final Page<P> query(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
-        if (this.transactionMode.isTransactionalRead()) {
-            return this.context.transactionResult(configuration -> doQuery(condition, order, pageNumber, pageSize));
+    public final List<I> insertAll(@Nonnull Collection<E> entities) {
+        return measure(RepositoryOperation.INSERT_ALL, () -> {
+            List<I> ids = new ArrayList<>(entities.size());
+            try {
+                for (List<E> chunk : chunks(entities)) {
+                    ids.addAll(write(RepositoryOperation.INSERT_ALL, context -> doInsertAll(context, chunk)));
+                }
+            } finally {
+                // The chunks inserted before a failure stay committed
+                invalidate(ids);
+            }
+            return ids;
+        }, List::size);
+    }
+
+    /**
+     * Inserts a chunk of new entities into the table using a single multi-row insert.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context  the DSL context
+     * @param entities the entities to insert, at most {@link #batchSize()} of them
+     * @return the IDs of the inserted entities in the order of the given entities
+     */
+    @Nonnull
+    protected List<I> doInsertAll(@Nonnull DSLContext context, @Nonnull List<E> entities) {
+        InsertSetStep<?> insert = context.insertInto(this.table);
+        InsertSetMoreStep<?> values = null;
+        for (E entity : entities) {
+            UpdatableRecord<?> record = toRecord(context, entity);
+            values = values == null ? insert.set(record) : values.newRecord().set(record);
+        }
+        if (values == null) {
+            return List.of();
+        }
+        return values.returning(this.idField).fetch(this.idField);
+    }
+
+    @Override
+    public final int updateAll(@Nonnull Collection<E> entities) {
+        return measure(RepositoryOperation.UPDATE_ALL, () -> {
+            int affectedRows = 0;
+            for (List<E> chunk : chunks(entities)) {
+                try {
+                    affectedRows += write(RepositoryOperation.UPDATE_ALL, context -> doUpdateAll(context, chunk));
+                } finally {
+                    invalidateEntities(chunk);
+                }
+            }
+            return affectedRows;
+        }, Integer::longValue);
+    }
+
+    /**
+     * Updates a chunk of existing entities in the table using JDBC batches of prepared updates.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context  the DSL context
+     * @param entities the entities to update, at most {@link #batchSize()} of them
+     * @return the number of affected rows, counting a statement whose count the driver does not report as one row
+     */
+    protected int doUpdateAll(@Nonnull DSLContext context, @Nonnull List<E> entities) {
+        // Entities updating different sets of fields need different statements
+        Map<List<Field<?>>, BatchBindStep> batches = new LinkedHashMap<>();
+        for (E entity : entities) {
+            UpdatableRecord<?> record = toRecord(context, entity);
+            List<Field<?>> fields = Arrays.stream(record.fields())
+                    .filter(field -> record.changed(field) && !field.equals(this.idField))
+                    .toList();
+            Object[] values = new Object[fields.size() + 1];
+            for (int i = 0; i < fields.size(); i++) {
+                values[i] = record.get(fields.get(i));
+            }
+            values[fields.size()] = record.get(this.idField);
+            BatchBindStep batch = batches.computeIfAbsent(fields, key -> context.batch(updateTemplate(context, key)));
+            batches.put(fields, batch.bind(values));
+        }
+        int affectedRows = 0;
+        for (BatchBindStep batch : batches.values()) {
+            for (int count : batch.execute()) {
+                // Drivers rewriting batches, such as MySQL's and Oracle's, may not report the count of each statement
+                affectedRows += count == java.sql.Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+            }
+        }
+        return affectedRows;
+    }
+
+    @Nonnull
+    private Query updateTemplate(@Nonnull DSLContext context, @Nonnull List<Field<?>> fields) {
+        Map<Field<?>, Field<?>> values = new LinkedHashMap<>();
+        for (Field<?> field : fields) {
+            values.put(field, DSL.val(null, field));
+        }
+        return context.update(this.table)
+                .set(values)
+                .where(this.idField.eq(DSL.val(null, this.idField)));
+    }
+
+    @Override
+    public final int deleteAll(@Nonnull Collection<I> ids) {
+        return measure(RepositoryOperation.DELETE_ALL, () -> {
+            int affectedRows = 0;
+            for (List<I> chunk : chunks(ids)) {
+                try {
+                    affectedRows += write(RepositoryOperation.DELETE_ALL, context -> doDeleteAll(context, chunk));
+                } finally {
+                    invalidate(chunk);
+                }
+            }
+            return affectedRows;
+        }, Integer::longValue);
+    }
+
+    /**
+     * Deletes a chunk of entities by their IDs from the table.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context the DSL context
+     * @param ids     the IDs of the entities to delete, at most {@link #batchSize()} of them
+     * @return the number of affected rows
+     */
+    protected int doDeleteAll(@Nonnull DSLContext context, @Nonnull List<I> ids) {
+        return context.deleteFrom(this.table)
+                .where(this.idField.in(ids))
+                .execute();
+    }
+
+    /**
+     * Removes the entities of the given IDs from the entity cache after they are written. Invalidating after the
+     * transaction ends, and even if it fails, prevents caching a version of the entity that is not committed.
+     */
+    private void invalidate(@Nonnull Collection<I> ids) {
+        afterWrite();
+        EntityCache<I, E> cache = entityCache();
+        if (cache != null) {
+            ids.forEach(cache::invalidate);
+        }
+        UnitOfWork unitOfWork = unitOfWork();
+        if (unitOfWork != null) {
+            unitOfWork.afterCompletion(() -> invalidate(ids));
+        }
+    }
+
+    private void invalidateEntities(@Nonnull Collection<E> entities) {
+        List<I> ids = new ArrayList<>(entities.size());
+        // The IDs are only needed by the entity cache, the other caches are invalidated as a whole
+        if (entityCache() != null) {
+            for (E entity : entities) {
+                I id = toRecord(context(), entity).get(this.idField);
+                if (id != null) {
+                    ids.add(id);
+                }
+            }
+        }
+        invalidate(ids);
+    }
+
+    private void invalidateUpserted(@Nonnull Collection<E> entities) {
+        EntityCache<I, E> cache = entityCache();
+        if (cache != null && !upsertKeys().equals(List.of(this.idField))) {
+            // An upsert by another unique key may change a row without knowing its ID
+            afterWrite();
+            cache.invalidateAll();
+            UnitOfWork unitOfWork = unitOfWork();
+            if (unitOfWork != null) {
+                unitOfWork.afterCompletion(() -> invalidateUpserted(entities));
+            }
         } else {
-            return doQuery(condition, order, pageNumber, pageSize);
+            invalidateEntities(entities);
+        }
+    }
+
+    /**
+     * Runs an operation, reporting its duration and the number of rows it returned or affected to {@link #metrics()}
+     * and to JFR.
+     */
+    private <T> T measure(@Nonnull RepositoryOperation operation, @Nonnull Supplier<T> action, @Nonnull ToLongFunction<? super T> rows) {
+        return measure(operation, -1, -1, action, rows);
+    }
+
+    private <T> T measure(@Nonnull RepositoryOperation operation,
+                          int pageNumber,
+                          int pageSize,
+                          @Nonnull Supplier<T> action,
+                          @Nonnull ToLongFunction<? super T> rows) {
+        RepositoryMetrics metrics = metrics();
+        RepositoryOperationEvent event = new RepositoryOperationEvent();
+        if (metrics == null && !event.isEnabled()) {
+            return action.get();
+        }
+        event.begin();
+        long start = System.nanoTime();
+        T result;
+        try {
+            result = action.get();
+        } catch (RuntimeException | Error e) {
+            recordOperation(metrics, event, operation, start, pageNumber, pageSize, 0, true);
+            throw e;
+        }
+        recordOperation(metrics, event, operation, start, pageNumber, pageSize, rows.applyAsLong(result), false);
+        return result;
+    }
+
+    /**
+     * Opens a stream, reporting the time until it is closed and the number of rows consumed to {@link #metrics()} and
+     * to JFR.
+     */
+    @Nonnull
+    private <T> Stream<T> measureStream(@Nonnull RepositoryOperation operation, @Nonnull Supplier<Stream<T>> action) {
+        RepositoryMetrics metrics = metrics();
+        RepositoryOperationEvent event = new RepositoryOperationEvent();
+        if (metrics == null && !event.isEnabled()) {
+            return action.get();
+        }
+        event.begin();
+        long start = System.nanoTime();
+        Stream<T> stream;
+        try {
+            stream = action.get();
+        } catch (RuntimeException | Error e) {
+            recordOperation(metrics, event, operation, start, -1, -1, 0, true);
+            throw e;
+        }
+        long[] rows = new long[1];
+        return stream.peek(element -> rows[0]++)
+                .onClose(() -> recordOperation(metrics, event, operation, start, -1, -1, rows[0], false));
+    }
+
+    private void recordOperation(@Nullable RepositoryMetrics metrics,
+                                 @Nonnull RepositoryOperationEvent event,
+                                 @Nonnull RepositoryOperation operation,
+                                 long start,
+                                 int pageNumber,
+                                 int pageSize,
+                                 long rows,
+                                 boolean failed) {
+        if (metrics != null) {
+            metrics.recordOperation(this.table.getName(), operation, System.nanoTime() - start, rows, failed);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.operation = operation.name();
+            event.table = this.table.getName();
+            event.pageNumber = pageNumber;
+            event.pageSize = pageSize;
+            event.rows = rows;
+            event.transactional = isTransactional(operation);
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Runs a transaction, reporting its duration to {@link #metrics()}.
+     */
+    private <T> T transactionResult(@Nonnull DSLContext context, @Nonnull RepositoryOperation operation, @Nonnull TransactionalCallable<T> transactional) {
+        RepositoryMetrics metrics = metrics();
+        if (metrics == null) {
+            return context.transactionResult(transactional);
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = context.transactionResult(transactional);
+            failed = false;
+            return result;
+        } finally {
+            metrics.recordTransaction(this.table.getName(), operation, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Runs a read in a read-only transaction of the {@link #readIsolation()} level, reporting its duration to
+     * {@link #metrics()}.
+     */
+    private <T> T readOnlyTransactionResult(@Nonnull DSLContext context, @Nonnull RepositoryOperation operation, @Nonnull Function<DSLContext, T> action) {
+        RepositoryMetrics metrics = metrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        ConnectionProvider connectionProvider = context.configuration().connectionProvider();
+        Connection connection = connectionProvider.acquire();
+        ConnectionState state = beginTransaction(connectionProvider, connection);
+        T result;
+        try {
+            result = action.apply(context.configuration().derive(connection).dsl());
+        } catch (RuntimeException | Error e) {
+            endTransaction(connectionProvider, connection, state, false);
+            if (metrics != null) {
+                metrics.recordTransaction(this.table.getName(), operation, System.nanoTime() - start, true);
+            }
+            throw e;
+        }
+        endTransaction(connectionProvider, connection, state, true);
+        if (metrics != null) {
+            metrics.recordTransaction(this.table.getName(), operation, System.nanoTime() - start, false);
+        }
+        return result;
+    }
+
+    private boolean isTransactional(@Nonnull RepositoryOperation operation) {
+        if (operation.isWrite()) {
+            return this.transactionMode.isTransactionalWrite();
+        }
+        return this.transactionMode.isTransactionalRead()
+                && !(this.transactionMode.isReadOnlyRead() && SINGLE_STATEMENT_READS.contains(operation));
+    }
+
+    /**
+     * Invalidates the page cache and starts the read-your-writes window of the replica router after any write.
+     */
+    private void afterWrite() {
+        PageCache cache = pageCache();
+        if (cache != null) {
+            cache.invalidateAll();
+        }
+        QueryCoalescer coalescer = queryCoalescer();
+        if (coalescer != null) {
+            coalescer.invalidateAll();
+        }
+        ReplicaRouter router = replicaRouter();
+        if (router != null) {
+            router.written();
         }
     }
 
+    /**
+     * Runs a read on the transaction of the current unit of work, or on the read context in a transaction of its own
+     * if the reads are transactional.
+     */
+    private <T> T read(@Nonnull RepositoryOperation operation, @Nonnull Function<DSLContext, T> action) {
+        UnitOfWork unitOfWork = unitOfWork();
+        if (unitOfWork != null) {
+            // The buffered writes are executed first so that this operation sees them
+            unitOfWork.flush();
+            return action.apply(context(unitOfWork));
+        }
+        DSLContext context = readContext();
+        if (!isTransactional(operation)) {
+            return action.apply(context);
+        } else if (this.transactionMode.isReadOnlyRead()) {
+            return readOnlyTransactionResult(context, operation, action);
+        }
+        return transactionResult(context, operation, configuration -> action.apply(configuration.dsl()));
+    }
+
+    /**
+     * Runs a write on the transaction of the current unit of work, or on the primary context in a transaction of its
+     * own if the writes are transactional.
+     */
+    private <T> T write(@Nonnull RepositoryOperation operation, @Nonnull Function<DSLContext, T> action) {
+        UnitOfWork unitOfWork = unitOfWork();
+        if (unitOfWork != null) {
+            // The buffered writes are executed first so that this operation sees them
+            unitOfWork.flush();
+            return action.apply(context(unitOfWork));
+        }
+        if (this.transactionMode.isTransactionalWrite()) {
+            return transactionResult(context(), operation, configuration -> action.apply(configuration.dsl()));
+        }
+        return action.apply(context());
+    }
+
+    /**
+     * Opens a stream on the transaction of the current unit of work, or on the read context in a transaction of its
+     * own. The stream always runs in a transaction, whatever the transaction mode, because drivers such as the
+     * PostgreSQL one ignore the fetch size in auto-commit mode and buffer the whole result.
+     */
+    @Nonnull
+    private <T> Stream<T> stream(@Nonnull RepositoryOperation operation, @Nonnull Function<DSLContext, Stream<T>> streamer) {
+        UnitOfWork unitOfWork = unitOfWork();
+        if (unitOfWork != null) {
+            // The buffered writes are executed first so that this operation sees them
+            unitOfWork.flush();
+            return streamer.apply(context(unitOfWork));
+        }
+        return streamInTransaction(readContext(), operation, streamer);
+    }
+
+    /**
+     * Returns the unit of work this repository joins on the current thread.
+     */
+    @Nullable
+    private UnitOfWork unitOfWork() {
+        return UnitOfWork.current(this.context);
+    }
+
+    @Nonnull
+    private DSLContext context(@Nonnull UnitOfWork unitOfWork) {
+        SlowQueryListener listener = slowQueryListener();
+        DSLContext context = unitOfWork.dsl();
+        // Not cached like the other contexts, since every unit of work has a context of its own
+        return listener == null ? context : context.configuration().deriveAppending(listener).dsl();
+    }
+
+    /**
+     * Returns the context of a read, which is a replica unless the current thread wrote recently.
+     */
+    @Nonnull
+    private DSLContext readContext() {
+        ReplicaRouter router = replicaRouter();
+        return listening(router == null ? this.context : router.readContext(this.context));
+    }
+
+    @Nonnull
+    private DSLContext context() {
+        return listening(this.context);
+    }
+
+    /**
+     * Returns the given context with the {@link #slowQueryListener()} installed, deriving it once per context.
+     */
+    @Nonnull
+    private DSLContext listening(@Nonnull DSLContext context) {
+        SlowQueryListener listener = slowQueryListener();
+        if (listener == null) {
+            return context;
+        }
+        return this.listeningContexts.computeIfAbsent(context, listener::install);
+    }
+
+    @Nonnull
+    private <T> List<List<T>> chunks(@Nonnull Collection<T> items) {
+        int batchSize = batchSize();
+        if (batchSize <= 0) {
+            throw new IllegalStateException("Batch size must be positive: " + batchSize);
+        }
+        List<T> list = List.copyOf(items);
+        List<List<T>> chunks = new ArrayList<>((list.size() + batchSize - 1) / batchSize);
+        for (int i = 0; i < list.size(); i += batchSize) {
+            chunks.add(list.subList(i, Math.min(list.size(), i + batchSize)));
+        }
+        return chunks;
+    }
+
+    @Nonnull
+    @Override
+    public final Page<P> query(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        return measure(RepositoryOperation.QUERY, pageNumber, pageSize, () -> sharedPage(context -> pageKey(context, condition, order, pageNumber, pageSize), pageNumber, pageSize,
+                () -> read(RepositoryOperation.QUERY, context -> doQuery(context, condition, order, pageNumber, pageSize))), page -> page.content().size());
+    }
+
     /**
      * Queries the table with the specified condition, order, page number, and page size.
      * <p>
      * Override this method to provide a custom implementation.
      *
+     * @param context    the DSL context
      * @param condition  the condition to filter the query
      * @param order      the order field to sort the query
      * @param pageNumber the page number for pagination
@@ -256,17 +901,817 @@ public class JooqRepository<E extends Record, P extends Record, I> implements Re
      * @return a Page containing the results of the query
      */
     @Nonnull
-    protected Page<P> doQuery(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
-        List<P> result = project(this.context)
-                .from(this.table)
-                .where(condition)
-                .orderBy(order)
-                .offset(pageNumber * pageSize)
-                .limit(pageSize)
-                .fetchInto(this.projectionClass);
-        int count = this.context.fetchCount(table, condition);
-        int totalPages = (int) Math.ceil((double) count / pageSize);
-        return new Page<>(result, pageNumber, pageSize, totalPages, count);
+    protected Page<P> doQuery(@Nonnull DSLContext context, @Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        boolean windowCount = countStrategy() == CountStrategy.WINDOW_FUNCTION;
+        ResultQuery<?> select = pageSelect(context, condition, order, DSL.val(pageNumber * pageSize), DSL.val(pageSize), windowCount);
+        PageCount count = pageCount(context, condition, windowCount, () -> context.fetchCount(table, condition));
+        PageCache cache = pageCache();
+        if (cache == null || unitOfWork() != null) {
+            return toPage(select.fetch(), count, pageNumber, pageSize);
+        }
+        PageCache.Key key = new PageCache.Key(context.render(select), select.getBindValues());
+        return cachedPage(cache, key, select::fetch, count, pageNumber, pageSize);
+    }
+
+    @Nonnull
+    @Override
+    public final Page<P> query(@Nonnull ShapedCondition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        return measure(RepositoryOperation.QUERY, pageNumber, pageSize, () -> sharedPage(context -> pageKey(context, condition, order, pageNumber, pageSize), pageNumber, pageSize,
+                () -> read(RepositoryOperation.QUERY, context -> doQuery(context, condition, order, pageNumber, pageSize))), page -> page.content().size());
+    }
+
+    /**
+     * Queries the table with the specified shaped condition, order, page number, and page size.
+     * <p>
+     * If {@link #queryShapeCache()} returns a cache, the SQL is rendered once per shape and order, and executed with
+     * the bind values of the condition afterward. Otherwise, this method behaves like
+     * {@link #doQuery(DSLContext, Condition, OrderField, int, int)}.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context    the DSL context
+     * @param condition  the shaped condition to filter the query
+     * @param order      the order field to sort the query
+     * @param pageNumber the page number for pagination
+     * @param pageSize   the page size for pagination
+     * @return a Page containing the results of the query
+     */
+    @Nonnull
+    protected Page<P> doQuery(@Nonnull DSLContext context, @Nonnull ShapedCondition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        boolean windowCount = countStrategy() == CountStrategy.WINDOW_FUNCTION;
+        ShapedQuery query = shapedQuery(context, condition, order, windowCount);
+        if (query == null) {
+            return doQuery(context, condition.condition(), order, pageNumber, pageSize);
+        }
+        Object[] bindValues = query.pageBindValues(condition.bindValues(), pageNumber * pageSize, pageSize);
+        ResultQuery<org.jooq.Record> select = context.resultQuery(query.pageSql(), bindValues).coerce(query.pageFields());
+        PageCount count = pageCount(context, condition.condition(), windowCount, () -> {
+            ResultQuery<org.jooq.Record> countQuery = context.resultQuery(Objects.requireNonNull(query.countSql()), condition.bindValues().toArray());
+            return Objects.requireNonNull(countQuery.fetchSingle(0, Long.class));
+        });
+        PageCache cache = pageCache();
+        if (cache == null || unitOfWork() != null) {
+            return toPage(select.fetch(), count, pageNumber, pageSize);
+        }
+        PageCache.Key pageKey = new PageCache.Key(query.pageSql(), Arrays.asList(bindValues));
+        return cachedPage(cache, pageKey, select::fetch, count, pageNumber, pageSize);
+    }
+
+    /**
+     * Returns the query of the shape from the {@link #queryShapeCache()}, or null if there is no cache or the shape
+     * cannot be queried through it.
+     */
+    @Nullable
+    private ShapedQuery shapedQuery(@Nonnull DSLContext context, @Nonnull ShapedCondition condition, @Nonnull OrderField<?> order, boolean windowCount) {
+        QueryShapeCache cache = queryShapeCache();
+        if (cache == null) {
+            return null;
+        }
+        QueryShapeCache.Key key = new QueryShapeCache.Key(condition.shape(), orderKey(context, order), windowCount);
+        return cache.get(key, k -> renderShape(context, condition, order, windowCount)).orElse(null);
+    }
+
+    /**
+     * Returns the key of the page in the {@link #pageCache()}, as used by
+     * {@link #doQuery(DSLContext, Condition, OrderField, int, int)}.
+     */
+    @Nonnull
+    private PageCache.Key pageKey(@Nonnull DSLContext context, @Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        boolean windowCount = countStrategy() == CountStrategy.WINDOW_FUNCTION;
+        ResultQuery<?> select = pageSelect(context, condition, order, DSL.val(pageNumber * pageSize), DSL.val(pageSize), windowCount);
+        return new PageCache.Key(context.render(select), select.getBindValues());
+    }
+
+    /**
+     * Returns the key of the page in the {@link #pageCache()}, as used by
+     * {@link #doQuery(DSLContext, ShapedCondition, OrderField, int, int)}.
+     */
+    @Nonnull
+    private PageCache.Key pageKey(@Nonnull DSLContext context, @Nonnull ShapedCondition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        ShapedQuery query = shapedQuery(context, condition, order, countStrategy() == CountStrategy.WINDOW_FUNCTION);
+        if (query == null) {
+            return pageKey(context, condition.condition(), order, pageNumber, pageSize);
+        }
+        return new PageCache.Key(query.pageSql(), Arrays.asList(query.pageBindValues(condition.bindValues(), pageNumber * pageSize, pageSize)));
+    }
+
+    /**
+     * Returns the page through the {@link #pageCache()} and the {@link #queryCoalescer()} before a connection or a
+     * transaction is acquired for the query, so that neither a cached page nor a caller waiting for an identical query
+     * in flight holds a connection. Queries in a unit of work bypass both.
+     *
+     * @param key        the function rendering the key of the page on the read context
+     * @param pageNumber the page number for pagination
+     * @param pageSize   the page size for pagination
+     * @param query      the query of the page, acquiring the connection
+     * @return the page
+     */
+    @Nonnull
+    private Page<P> sharedPage(@Nonnull Function<DSLContext, PageCache.Key> key, int pageNumber, int pageSize, @Nonnull Supplier<Page<P>> query) {
+        PageCache cache = pageCache();
+        QueryCoalescer coalescer = queryCoalescer();
+        if ((cache == null && coalescer == null) || unitOfWork() != null) {
+            return query.get();
+        }
+        PageCache.Key pageKey = key.apply(readContext());
+        if (cache != null) {
+            PageCache.CachedPage cached = cache.get(pageKey);
+            if (cached != null) {
+                return toPage(cached, pageNumber, pageSize);
+            }
+        }
+        return coalescer == null ? query.get() : coalescer.execute(pageKey, query);
+    }
+
+    @Nonnull
+    private Page<P> toPage(@Nonnull PageCache.CachedPage cached, int pageNumber, int pageSize) {
+        List<P> content = context().fetchFromJSON(cached.result()).into(this.projectionClass);
+        return toPage(content, pageNumber, pageSize, new Total(cached.totalElements(), cached.estimatedTotal()));
+    }
+
+    /**
+     * Returns the page of the given key from the page cache, or fetches and caches it if it is absent. The lookup is
+     * not counted, as {@link #query} has counted it before the transaction.
+     */
+    @Nonnull
+    private Page<P> cachedPage(@Nonnull PageCache cache,
+                               @Nonnull PageCache.Key key,
+                               @Nonnull Supplier<Result<?>> fetch,
+                               @Nonnull PageCount count,
+                               int pageNumber,
+                               int pageSize) {
+        // Another query may have cached the page since the lookup, for example while this one waited for a connection
+        PageCache.CachedPage cached = cache.peek(key);
+        if (cached != null) {
+            return toPage(cached, pageNumber, pageSize);
+        }
+        long epoch = cache.epoch();
+        Result<?> result = fetch.get();
+        Total total = totalElements(result, count, pageNumber, pageSize);
+        Result<?> content = withoutTotalCount(result);
+        cache.put(key, epoch, new PageCache.CachedPage(total.count(), total.estimated(), content.formatJSON()));
+        return toPage(content.into(this.projectionClass), pageNumber, pageSize, total);
+    }
+
+    /**
+     * Renders the SQL of a shape and verifies that the bind values of the condition are bound in the expected order.
+     * Shapes failing the verification, for example because of settings that inline or pad bind values, are cached as
+     * empty and always queried without the cache.
+     */
+    @Nonnull
+    private Optional<ShapedQuery> renderShape(@Nonnull DSLContext context, @Nonnull ShapedCondition condition, @Nonnull OrderField<?> order, boolean windowCount) {
+        Settings settings = context.settings();
+        if (settings.getStatementType() == StatementType.STATIC_STATEMENT
+                || (settings.getParamType() != null && settings.getParamType() != ParamType.INDEXED)) {
+            return Optional.empty();
+        }
+        // Distinct offset and limit values tell the dialect's order of the two apart
+        ResultQuery<?> page = pageSelect(context, condition.condition(), order, DSL.val(1), DSL.val(2), windowCount);
+        List<Object> bindValues = page.getBindValues();
+        List<Object> conditionBindValues = condition.bindValues();
+        int size = conditionBindValues.size();
+        if (bindValues.size() != size + 2 || !bindValues.subList(0, size).equals(conditionBindValues)) {
+            return Optional.empty();
+        }
+        boolean limitFirst;
+        if (bindValues.subList(size, size + 2).equals(List.of(1, 2))) {
+            limitFirst = false;
+        } else if (bindValues.subList(size, size + 2).equals(List.of(2, 1))) {
+            limitFirst = true;
+        } else {
+            return Optional.empty();
+        }
+        String countSql = null;
+        if (!windowCount) {
+            Select<?> count = context.selectCount().from(this.table).where(condition.condition());
+            if (!count.getBindValues().equals(conditionBindValues)) {
+                return Optional.empty();
+            }
+            countSql = context.render(count);
+        }
+        return Optional.of(new ShapedQuery(context.render(page), List.of(page.fields()), limitFirst, countSql));
+    }
+
+    @Nonnull
+    private static Object orderKey(@Nonnull DSLContext context, @Nonnull OrderField<?> order) {
+        // Column names are cheap to compare, other expressions are compared by their SQL
+        if (order instanceof TableField<?, ?> field) {
+            return field.getQualifiedName();
+        } else if (order instanceof SortField<?> sortField && sortField.$field() instanceof TableField<?, ?> field) {
+            return Arrays.asList(field.getQualifiedName(), sortField.$sortOrder(), sortField.$nullOrdering());
+        } else {
+            return context.render(order);
+        }
+    }
+
+    @Nonnull
+    private ResultQuery<?> pageSelect(@Nonnull DSLContext context,
+                                      @Nonnull Condition condition,
+                                      @Nonnull OrderField<?> order,
+                                      @Nonnull Param<Integer> offset,
+                                      @Nonnull Param<Integer> limit,
+                                      boolean windowCount) {
+        SelectSelectStep<?> select = project(context);
+        if (windowCount) {
+            if (select.$select().isEmpty()) {
+                // An empty select list means all columns, which must be explicit once the count is added
+                select = select.select(this.table.asterisk());
+            }
+            select = select.select(TOTAL_COUNT);
+        }
+        return select.from(this.table)
+                .where(condition)
+                .orderBy(order)
+                .offset(offset)
+                .limit(limit);
+    }
+
+    /**
+     * Returns how the total of a page is counted, measuring the separate count and the estimate as
+     * {@link RepositoryOperation#QUERY_COUNT}.
+     */
+    @Nonnull
+    private PageCount pageCount(@Nonnull DSLContext context, @Nonnull Condition condition, boolean windowCount, @Nonnull LongSupplier count) {
+        LongSupplier separateCount = () -> measure(RepositoryOperation.QUERY_COUNT, count::getAsLong, c -> 1);
+        if (countStrategy() != CountStrategy.ESTIMATED) {
+            return new PageCount(windowCount, separateCount, null);
+        }
+        RowCountEstimator estimator = rowCountEstimator();
+        return new PageCount(false, separateCount, () -> measure(RepositoryOperation.QUERY_COUNT,
+                () -> estimator.estimate(context, this.table, condition),
+                estimate -> 1));
+    }
+
+    @Nonnull
+    private Page<P> toPage(@Nonnull Result<?> result, @Nonnull PageCount count, int pageNumber, int pageSize) {
+        Total total = totalElements(result, count, pageNumber, pageSize);
+        return toPage(withoutTotalCount(result).into(this.projectionClass), pageNumber, pageSize, total);
+    }
+
+    @Nonnull
+    private static Total totalElements(@Nonnull Result<?> result, @Nonnull PageCount count, int pageNumber, int pageSize) {
+        if (count.window()) {
+            if (!result.isEmpty()) {
+                return new Total(Objects.requireNonNull(result.getFirst().get(TOTAL_COUNT.getName(), Long.class)), false);
+            } else if (pageNumber == 0) {
+                return new Total(0, false);
+            }
+            // The window has no rows to report the total on when the page is out of range
+        } else if (count.estimate() != null) {
+            int offset = pageNumber * pageSize;
+            if (result.size() < pageSize && (!result.isEmpty() || pageNumber == 0)) {
+                // The last page tells the exact total
+                return new Total((long) offset + result.size(), false);
+            } else if (!result.isEmpty()) {
+                OptionalLong estimate = count.estimate().get();
+                if (estimate.isPresent()) {
+                    // Stale statistics may estimate fewer rows than the pages up to this one
+                    return new Total(Math.max(estimate.getAsLong(), (long) offset + result.size()), true);
+                }
+            }
+        }
+        return new Total(count.separate().getAsLong(), false);
+    }
+
+    @Nonnull
+    private static Result<?> withoutTotalCount(@Nonnull Result<?> result) {
+        if (result.field(TOTAL_COUNT.getName()) == null) {
+            return result;
+        }
+        Field<?>[] fields = Arrays.stream(result.fields())
+                .filter(field -> !field.getName().equals(TOTAL_COUNT.getName()))
+                .toArray(Field<?>[]::new);
+        return result.into(fields);
+    }
+
+    @Nonnull
+    private Page<P> toPage(@Nonnull List<P> content, int pageNumber, int pageSize, @Nonnull Total total) {
+        int totalPages = (int) Math.ceil((double) total.count() / pageSize);
+        return new Page<>(content, pageNumber, pageSize, totalPages, total.count(), total.estimated());
+    }
+
+    /**
+     * How the total of a page is counted: by the window of the page select, by an estimate, or by a separate count.
+     *
+     * @param window   whether the page select counts the total in a window
+     * @param separate the separate count of the total
+     * @param estimate the estimate of the total, or null if the total is not estimated
+     */
+    private record PageCount(boolean window, LongSupplier separate, @Nullable Supplier<OptionalLong> estimate) {
+    }
+
+    /**
+     * The total number of elements of a page.
+     *
+     * @param count     the total number of elements
+     * @param estimated whether the total is estimated
+     */
+    private record Total(long count, boolean estimated) {
+    }
+
+    @Nonnull
+    @Override
+    public final Stream<P> stream(@Nonnull Condition condition, @Nonnull OrderField<?> order) {
+        return measureStream(RepositoryOperation.STREAM, () -> stream(RepositoryOperation.STREAM, context -> doStream(context, condition, order)));
+    }
+
+    /**
+     * Streams the table with the specified condition and order using a database cursor.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context   the DSL context
+     * @param condition the condition to filter the query
+     * @param order     the order field to sort the query
+     * @return a stream of projection records
+     */
+    @Nonnull
+    protected Stream<P> doStream(@Nonnull DSLContext context, @Nonnull Condition condition, @Nonnull OrderField<?> order) {
+        return project(context)
+                .from(this.table)
+                .where(condition)
+                .orderBy(order)
+                .fetchSize(fetchSize())
+                .fetchStreamInto(this.projectionClass);
+    }
+
+    /**
+     * Opens a stream in a transaction that stays open until the stream is closed.
+     * <p>
+     * {@link DSLContext#transactionResult(TransactionalCallable)} cannot be used here because it commits as soon as
+     * the callable returns, while the rows of a stream are fetched afterward.
+     *
+     * @param context   the DSL context to start the transaction on
+     * @param operation the operation opening the stream
+     * @param streamer  the function opening the stream on a transactional context
+     * @param <T>       the type of the stream elements
+     * @return the stream
+     */
+    @Nonnull
+    private <T> Stream<T> streamInTransaction(@Nonnull DSLContext context,
+                                              @Nonnull RepositoryOperation operation,
+                                              @Nonnull Function<DSLContext, Stream<T>> streamer) {
+        RepositoryMetrics metrics = metrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+        ConnectionProvider connectionProvider = context.configuration().connectionProvider();
+        Connection connection = connectionProvider.acquire();
+        ConnectionState state = beginTransaction(connectionProvider, connection);
+        try {
+            return streamer.apply(context.configuration().derive(connection).dsl())
+                    .onClose(() -> {
+                        endTransaction(connectionProvider, connection, state, true);
+                        if (metrics != null) {
+                            metrics.recordTransaction(this.table.getName(), operation, System.nanoTime() - start, false);
+                        }
+                    });
+        } catch (RuntimeException | Error e) {
+            endTransaction(connectionProvider, connection, state, false);
+            if (metrics != null) {
+                metrics.recordTransaction(this.table.getName(), operation, System.nanoTime() - start, true);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts a transaction on the given connection, which is read-only if the transaction mode requires it, and returns
+     * the state of the connection to restore at the end of the transaction. If the transaction cannot be started, the
+     * changed settings are restored and the connection is released.
+     */
+    @Nonnull
+    private ConnectionState beginTransaction(@Nonnull ConnectionProvider connectionProvider, @Nonnull Connection connection) {
+        boolean autoCommit;
+        try {
+            autoCommit = connection.getAutoCommit();
+        } catch (SQLException e) {
+            connectionProvider.release(connection);
+            throw new DataAccessException("Failed to start a transaction", e);
+        }
+        Boolean readOnly = null;
+        int isolation = Connection.TRANSACTION_NONE;
+        try {
+            if (this.transactionMode.isReadOnlyRead()) {
+                int readIsolation = readIsolation();
+                if (readIsolation != Connection.TRANSACTION_NONE) {
+                    int currentIsolation = connection.getTransactionIsolation();
+                    if (currentIsolation != readIsolation) {
+                        connection.setTransactionIsolation(readIsolation);
+                        isolation = currentIsolation;
+                    }
+                }
+                boolean currentReadOnly = connection.isReadOnly();
+                connection.setReadOnly(true);
+                readOnly = currentReadOnly;
+            }
+            connection.setAutoCommit(false);
+            return new ConnectionState(autoCommit, readOnly, isolation);
+        } catch (SQLException e) {
+            try {
+                restore(connection, new ConnectionState(autoCommit, readOnly, isolation), e);
+            } finally {
+                connectionProvider.release(connection);
+            }
+            throw new DataAccessException("Failed to start a transaction", e);
+        }
+    }
+
+    /**
+     * Commits or rolls back the transaction of the given connection, restores the state of the connection and releases
+     * it. A transaction failing to commit is rolled back.
+     */
+    private static void endTransaction(@Nonnull ConnectionProvider connectionProvider,
+                                       @Nonnull Connection connection,
+                                       @Nonnull ConnectionState state,
+                                       boolean commit) {
+        SQLException failure = null;
+        boolean aborted = false;
+        try {
+            try {
+                if (commit) {
+                    connection.commit();
+                } else {
+                    connection.rollback();
+                }
+            } catch (SQLException e) {
+                failure = e;
+                if (commit) {
+                    try {
+                        connection.rollback();
+                    } catch (SQLException rollbackFailure) {
+                        failure.addSuppressed(rollbackFailure);
+                        // A connection in an unknown transaction state must not be reused
+                        abort(connection, failure);
+                        aborted = true;
+                    }
+                }
+            }
+            if (!aborted) {
+                failure = restore(connection, state, failure);
+            }
+        } finally {
+            connectionProvider.release(connection);
+        }
+        if (failure != null) {
+            throw new DataAccessException("Failed to end a transaction", failure);
+        }
+    }
+
+    /**
+     * Restores each setting of the given state independently, and aborts the connection if any of them cannot be
+     * restored, so that a pool does not hand it out again.
+     *
+     * @return the given failure with the failures of the restore suppressed, or the first failure of the restore
+     */
+    @Nullable
+    private static SQLException restore(@Nonnull Connection connection, @Nonnull ConnectionState state, @Nullable SQLException failure) {
+        List<SQLException> failures = new ArrayList<>(3);
+        try {
+            connection.setAutoCommit(state.autoCommit());
+        } catch (SQLException e) {
+            failures.add(e);
+        }
+        if (state.readOnly() != null) {
+            try {
+                connection.setReadOnly(state.readOnly());
+            } catch (SQLException e) {
+                failures.add(e);
+            }
+        }
+        if (state.isolation() != Connection.TRANSACTION_NONE) {
+            try {
+                connection.setTransactionIsolation(state.isolation());
+            } catch (SQLException e) {
+                failures.add(e);
+            }
+        }
+        if (failures.isEmpty()) {
+            return failure;
+        }
+        SQLException result = failure == null ? failures.removeFirst() : failure;
+        failures.forEach(result::addSuppressed);
+        abort(connection, result);
+        return result;
+    }
+
+    private static void abort(@Nonnull Connection connection, @Nonnull SQLException failure) {
+        try {
+            connection.abort(Runnable::run);
+        } catch (SQLException | RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+    }
+
+    /**
+     * The state of a connection before a transaction started on it.
+     *
+     * @param autoCommit the auto-commit mode
+     * @param readOnly   the read-only mode, or null if it is not changed
+     * @param isolation  the transaction isolation level, or {@link Connection#TRANSACTION_NONE} if it is not changed
+     */
+    private record ConnectionState(boolean autoCommit, @Nullable Boolean readOnly, int isolation) {
+    }
+
+    @Nonnull
+    @Override
+    public final Slice<P> slice(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        return measure(RepositoryOperation.SLICE, pageNumber, pageSize, () -> read(RepositoryOperation.SLICE, context -> doSlice(context, condition, order, pageNumber, pageSize)), slice -> slice.content().size());
+    }
+
+    /**
+     * Queries the table with the specified condition, order, page number, and page size without counting the total
+     * number of records. One extra record is fetched to find out if there is a next page.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context    the DSL context
+     * @param condition  the condition to filter the query
+     * @param order      the order field to sort the query
+     * @param pageNumber the page number for pagination
+     * @param pageSize   the page size for pagination
+     * @return a Slice containing the results of the query
+     */
+    @Nonnull
+    protected Slice<P> doSlice(@Nonnull DSLContext context, @Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        List<P> result = project(context)
+                .from(this.table)
+                .where(condition)
+                .orderBy(order)
+                .offset(pageNumber * pageSize)
+                .limit(pageSize + 1)
+                .fetchInto(this.projectionClass);
+        boolean hasNext = result.size() > pageSize;
+        return new Slice<>(hasNext ? result.subList(0, pageSize) : result, pageNumber, pageSize, hasNext);
+    }
+
+    @Nonnull
+    @Override
+    public final CursorPage<P> seek(@Nonnull Condition condition, @Nonnull OrderField<?> order, @Nullable String cursor, int pageSize) {
+        return measure(RepositoryOperation.SEEK, -1, pageSize, () -> read(RepositoryOperation.SEEK, context -> doSeek(context, condition, order, cursor, pageSize)), page -> page.content().size());
+    }
+
+    /**
+     * Queries the table with the specified condition and order, starting from the row encoded in the cursor.
+     * <p>
+     * The ID field is used as a tie-breaker to make the order unique. Both the order field and the ID field must be
+     * part of the projection. NULL values of a nullable order field are sorted last in ascending order and first in
+     * descending order, unless the order field specifies otherwise.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context   the DSL context
+     * @param condition the condition to filter the query
+     * @param order     the order field to sort the query
+     * @param cursor    the cursor of the page to fetch, or null to fetch the first page
+     * @param pageSize  the page size for pagination
+     * @return a CursorPage containing the results of the query
+     */
+    @Nonnull
+    protected CursorPage<P> doSeek(@Nonnull DSLContext context, @Nonnull Condition condition, @Nonnull OrderField<?> order, @Nullable String cursor, int pageSize) {
+        SortField<?> sortField = order instanceof SortField<?> field ? field : ((Field<?>) order).asc();
+        List<Field<?>> keys = List.of(sortField.$field(), this.idField);
+        int orderHash = KeysetCursor.order(sortField);
+        KeysetCursor position = cursor == null ? null : KeysetCursor.decode(cursor, orderHash, keys);
+        boolean backward = position != null && position.backward();
+        boolean descending = sortField.$sortOrder() == SortOrder.DESC;
+        boolean ascending = !descending ^ backward;
+
+        ResultQuery<?> select;
+        if (sortField.$field().getDataType().nullable()) {
+            // Row value comparisons are never true for NULL, so the NULL values are sought explicitly
+            boolean nullsHigh = switch (sortField.$nullOrdering()) {
+                case NULLS_FIRST -> descending;
+                case NULLS_LAST -> !descending;
+                case null -> true;
+            };
+            boolean nullsAfter = nullsHigh == ascending;
+            Field<?> key = sortField.$field();
+            SortField<?> keyOrder = ascending ? key.asc() : key.desc();
+            select = project(context)
+                    .from(this.table)
+                    .where(condition)
+                    .and(position == null ? DSL.noCondition() : after(key, position.values(), ascending, nullsAfter))
+                    .orderBy(nullsAfter ? keyOrder.nullsLast() : keyOrder.nullsFirst(), ascending ? this.idField.asc() : this.idField.desc())
+                    .limit(pageSize + 1);
+        } else {
+            SelectSeekStepN<?> ordered = project(context)
+                    .from(this.table)
+                    .where(condition)
+                    .orderBy(keys.stream()
+                            .<SortField<?>>map(key -> ascending ? key.asc() : key.desc())
+                            .toList());
+            select = position == null
+                    ? ordered.limit(pageSize + 1)
+                    : ordered.seek(position.values().toArray()).limit(pageSize + 1);
+        }
+        Result<?> result = select.fetch();
+        if (result.isEmpty()) {
+            if (position == null) {
+                return CursorPage.empty(pageSize);
+            }
+            // Nothing is beyond the position, but the rows on the other side of it are still reachable
+            String reverse = new KeysetCursor(orderHash, !backward, position.values()).encode();
+            return new CursorPage<>(List.of(), pageSize, backward ? reverse : null, backward ? null : reverse);
+        }
+
+        boolean hasMore = result.size() > pageSize;
+        List<? extends org.jooq.Record> records = new ArrayList<>(result.subList(0, Math.min(result.size(), pageSize)));
+        if (backward) {
+            Collections.reverse(records);
+        }
+        List<P> content = records.stream().map(record -> record.into(this.projectionClass)).toList();
+        boolean hasNext = backward || hasMore;
+        boolean hasPrevious = backward ? hasMore : position != null;
+        String nextCursor = hasNext ? new KeysetCursor(orderHash, false, keyValues(records.getLast(), keys)).encode() : null;
+        String previousCursor = hasPrevious ? new KeysetCursor(orderHash, true, keyValues(records.getFirst(), keys)).encode() : null;
+        return new CursorPage<>(content, pageSize, nextCursor, previousCursor);
+    }
+
+    /**
+     * Returns the condition of the rows after the given position of a nullable order field in the traversal order.
+     */
+    @Nonnull
+    @SuppressWarnings("unchecked")
+    private Condition after(@Nonnull Field<?> field, @Nonnull List<Object> values, boolean ascending, boolean nullsAfter) {
+        Field<Object> key = (Field<Object>) field;
+        Object value = values.get(0);
+        I id = (I) values.get(1);
+        Condition idAfter = ascending ? this.idField.gt(id) : this.idField.lt(id);
+        if (value == null) {
+            Condition nullsBeyond = key.isNull().and(idAfter);
+            return nullsAfter ? nullsBeyond : key.isNotNull().or(nullsBeyond);
+        }
+        Condition beyond = (ascending ? key.gt(value) : key.lt(value)).or(key.eq(value).and(idAfter));
+        return nullsAfter ? beyond.or(key.isNull()) : beyond;
+    }
+
+    @Nonnull
+    private static List<Object> keyValues(@Nonnull org.jooq.Record record, @Nonnull List<Field<?>> keys) {
+        List<Object> values = new ArrayList<>(keys.size());
+        for (Field<?> key : keys) {
+            values.add(record.get(key));
+        }
+        return values;
+    }
+
+    /**
+     * Override this method to change how {@link #query(Condition, OrderField, int, int)} counts the total number of
+     * elements.
+     *
+     * @return the count strategy
+     */
+    @Nonnull
+    protected CountStrategy countStrategy() {
+        return CountStrategy.SEPARATE_QUERY;
+    }
+
+    /**
+     * Override this method to change how {@link CountStrategy#ESTIMATED} estimates the number of rows from the
+     * statistics of the database.
+     *
+     * @return the row count estimator
+     */
+    @Nonnull
+    protected RowCountEstimator rowCountEstimator() {
+        return RowCountEstimator.forDialect(this.context.dialect());
+    }
+
+    /**
+     * Override this method to cache the SQL of {@link #query(ShapedCondition, OrderField, int, int)} by the shape of
+     * the condition. The cache should be created once per repository.
+     *
+     * @return the query shape cache, or null to render the SQL of every query
+     */
+    @Nullable
+    protected QueryShapeCache queryShapeCache() {
+        return null;
+    }
+
+    /**
+     * Override this method to record the latency, the number of rows and the errors of the operations of this
+     * repository. Recording adds two clock reads and a few atomic increments per operation.
+     *
+     * @return the metrics, or null to not record metrics
+     */
+    @Nullable
+    protected RepositoryMetrics metrics() {
+        return null;
+    }
+
+    /**
+     * Override this method to route the reads of this repository to read replicas. The writes always use the context
+     * given to the constructor.
+     *
+     * @return the replica router, or null to read from the primary context
+     */
+    @Nullable
+    protected ReplicaRouter replicaRouter() {
+        return null;
+    }
+
+    /**
+     * Override this method to cache the pages returned by {@link #query(Condition, OrderField, int, int)} and
+     * {@link #query(ShapedCondition, OrderField, int, int)}. The cache should be created once per repository. All pages
+     * are invalidated by any write through this repository, but not when the table is modified by other means.
+     *
+     * @return the page cache, or null to query every page from the database
+     */
+    @Nullable
+    protected PageCache pageCache() {
+        return null;
+    }
+
+    /**
+     * Override this method to share the execution of identical concurrent calls of
+     * {@link #query(Condition, OrderField, int, int)} and {@link #query(ShapedCondition, OrderField, int, int)}. The
+     * coalescer should be created once per repository.
+     *
+     * @return the query coalescer, or null to execute every query
+     */
+    @Nullable
+    protected QueryCoalescer queryCoalescer() {
+        return null;
+    }
+
+    /**
+     * Override this method to cache the entities read by {@link #findById(Object)} and {@link #exists(Object)}. The
+     * cache should be created once per repository. The entities are invalidated when they are written through this
+     * repository, but not when the table is modified by other means.
+     *
+     * @return the entity cache, or null to read every entity from the database
+     */
+    @Nullable
+    protected EntityCache<I, E> entityCache() {
+        return null;
+    }
+
+    /**
+     * Override this method to report the statements of this repository executing longer than a threshold. The listener
+     * should be created once per repository.
+     *
+     * @return the slow query listener, or null to not report slow statements
+     */
+    @Nullable
+    protected SlowQueryListener slowQueryListener() {
+        return null;
+    }
+
+    /**
+     * Override this method to change the number of rows fetched from the database at a time while streaming.
+     *
+     * @return the JDBC fetch size
+     */
+    protected int fetchSize() {
+        return 1000;
+    }
+
+    /**
+     * Override this method to change the isolation level of the read-only transactions of
+     * {@link TransactionMode#SNAPSHOT_READ_WRITE}. The default repeatable read level makes all the statements of a read,
+     * such as the page and the count of {@link #query(Condition, OrderField, int, int)}, see the same snapshot in
+     * databases implementing it with MVCC.
+     *
+     * @return a JDBC transaction isolation level, or {@link Connection#TRANSACTION_NONE} to keep the level of the
+     * connection
+     */
+    protected int readIsolation() {
+        return Connection.TRANSACTION_REPEATABLE_READ;
+    }
+
+    /**
+     * Override this method to change the maximum number of entities written by a single statement or JDBC batch in
+     * {@link #insertAll(Collection)}, {@link #updateAll(Collection)} and {@link #deleteAll(Collection)}. Each chunk
+     * of this size is written in its own transaction if the transaction mode requires it.
+     *
+     * @return the batch size
+     */
+    protected int batchSize() {
+        return 500;
+    }
+
+    /**
+     * Override this method to upsert by a unique key other than the ID field.
+     *
+     * @return the fields of the unique key identifying an existing row in {@link #upsert(Record)}
+     */
+    @Nonnull
+    protected List<Field<?>> upsertKeys() {
+        return List.of(this.idField);
+    }
+
+    /**
+     * Override this method to change the maximum number of IDs in a single {@code IN} list of
+     * {@link #findAllById(Collection)}. The size must be a power of two that does not exceed the bind value limit of the
+     * dialect.
+     *
+     * @param dialect the SQL dialect of the query
+     * @return the maximum number of IDs in a single {@code IN} list
+     */
+    protected int inListSize(@Nonnull SQLDialect dialect) {
+        return switch (dialect.family()) {
+            // SQLite was limited to 999 bind values until 3.32
+            case SQLITE -> 512;
+            default -> 1024;
+        };
     }
 
     /**
@@ -0,0 +1,101 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import org.jooq.Field;
+import org.jooq.SortField;
+import org.jooq.exception.DataTypeException;
+import org.jooq.impl.SQLDataType;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * The position of a keyset page encoded as an opaque, URL safe token.
+ * <p>
+ * The token records a hash of the sort order it was created for, so that a cursor is not applied to another order,
+ * where its position would select the wrong rows.
+ *
+ * @param order    the hash of the sort order, as returned by {@link #order(SortField)}
+ * @param backward true if the cursor navigates to the rows before the position, false otherwise
+ * @param values   the sort key values of the row at the position, followed by the tie-breaker
+ */
+record KeysetCursor(int order, boolean backward, List<Object> values) {
+
+    /**
+     * Returns a hash of the field, the direction, and the NULL ordering of a sort order, which is stable across JVMs.
+     *
+     * @param order the sort order
+     * @return the hash of the sort order
+     */
+    static int order(@Nonnull SortField<?> order) {
+        return (order.$field().getQualifiedName() + " " + order.$sortOrder() + " " + order.$nullOrdering()).hashCode();
+    }
+
+    /**
+     * Encodes this cursor into an opaque token.
+     *
+     * @return the token
+     */
+    @Nonnull
+    String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(this.order);
+            out.writeBoolean(this.backward);
+            out.writeInt(this.values.size());
+            for (Object value : this.values) {
+                String text = SQLDataType.VARCHAR.convert(value);
+                out.writeBoolean(text != null);
+                if (text != null) {
+                    out.writeUTF(text);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Decodes a token created by {@link #encode()} for the given sort order using the data types of the given key
+     * fields.
+     *
+     * @param token  the token to decode
+     * @param order  the hash of the sort order, as returned by {@link #order(SortField)}
+     * @param fields the sort key fields, followed by the tie-breaker
+     * @return the cursor
+     * @throws IllegalArgumentException if the token is malformed or does not match the sort order or the key fields
+     */
+    @Nonnull
+    static KeysetCursor decode(@Nonnull String token, int order, @Nonnull List<Field<?>> fields) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            if (in.readInt() != order) {
+                throw new IllegalArgumentException("Cursor does not match the sort order: " + token);
+            }
+            boolean backward = in.readBoolean();
+            int size = in.readInt();
+            if (size != fields.size()) {
+                throw new IllegalArgumentException("Cursor does not match the sort order: " + token);
+            }
+            List<Object> values = new ArrayList<>(size);
+            for (Field<?> field : fields) {
+                values.add(in.readBoolean() ? convert(field, in.readUTF()) : null);
+            }
+            return new KeysetCursor(order, backward, values);
+        } catch (IOException | IllegalArgumentException | DataTypeException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + token, e);
+        }
+    }
+
+    @Nonnull
+    private static Object convert(@Nonnull Field<?> field, @Nonnull String text) {
+        // jOOQ converts unparsable values to NULL, which would silently move the position
+        Object value = field.getDataType().convert(text);
+        if (value == null) {
+            throw new IllegalArgumentException("Invalid value of " + field.getName() + ": " + text);
+        }
+        return value;
+    }
+}
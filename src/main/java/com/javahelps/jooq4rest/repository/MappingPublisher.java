@@ -0,0 +1,85 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+/**
+ * A publisher mapping the items of another publisher. Demand and cancellation are passed to the source as they are, so
+ * the source is cancelled, releasing its resources, if the mapping fails.
+ *
+ * @param <T> the type of the source items
+ * @param <R> the type of the mapped items
+ */
+final class MappingPublisher<T, R> implements Flow.Publisher<R> {
+
+    private final Flow.Publisher<T> source;
+    private final Function<? super T, ? extends R> mapper;
+
+    MappingPublisher(@Nonnull Flow.Publisher<T> source, @Nonnull Function<? super T, ? extends R> mapper) {
+        this.source = Objects.requireNonNull(source);
+        this.mapper = Objects.requireNonNull(mapper);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super R> subscriber) {
+        Objects.requireNonNull(subscriber);
+        this.source.subscribe(new MappingSubscriber<>(subscriber, this.mapper));
+    }
+
+    private static final class MappingSubscriber<T, R> implements Flow.Subscriber<T> {
+
+        private final Flow.Subscriber<? super R> downstream;
+        private final Function<? super T, ? extends R> mapper;
+        @Nullable
+        private Flow.Subscription subscription;
+        private boolean done;
+
+        private MappingSubscriber(@Nonnull Flow.Subscriber<? super R> downstream, @Nonnull Function<? super T, ? extends R> mapper) {
+            this.downstream = downstream;
+            this.mapper = mapper;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(T item) {
+            if (this.done) {
+                return;
+            }
+            R mapped;
+            try {
+                mapped = this.mapper.apply(item);
+            } catch (RuntimeException e) {
+                this.done = true;
+                Objects.requireNonNull(this.subscription).cancel();
+                this.downstream.onError(e);
+                return;
+            }
+            this.downstream.onNext(mapped);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!this.done) {
+                this.done = true;
+                this.downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (!this.done) {
+                this.done = true;
+                this.downstream.onComplete();
+            }
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache of the pages returned by {@link JooqRepository#query}, keyed by the SQL and the bind values of the
+ * page query.
+ * <p>
+ * The pages are serialized into a direct memory slab, so that large caches are kept outside the garbage collected heap.
+ * The slab is allocated once with the capacity of the cache, which must fit into the {@code -XX:MaxDirectMemorySize}
+ * of the JVM, and is divided into blocks of a fixed size. A page takes as many blocks as it needs, and its blocks are
+ * released for new pages as soon as it is evicted, expires or is invalidated. The least recently used pages are evicted
+ * first when there are not enough free blocks. Pages expire after the time to live, and all pages are invalidated by
+ * any write through the repository. {@link JooqRepository#query} looks the page up before it acquires a connection, so
+ * a hit does not open a transaction.
+ * <p>
+ * A cache belongs to a single repository. Override {@link JooqRepository#pageCache()} to enable it.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * private final PageCache pageCache = new PageCache(64 * 1024 * 1024, Duration.ofSeconds(30));
+ *
+ * @Override
+ * protected PageCache pageCache() {
+ *     return this.pageCache;
+ * }
+ * }
+ * </pre>
+ */
+public final class PageCache {
+
+    /**
+     * The default size of the blocks of the slab.
+     */
+    public static final int DEFAULT_BLOCK_SIZE = 1024;
+
+    // Direct buffers are indexed by int, so the slab is split into several buffers
+    private static final int MAX_BUFFER_SIZE = 1 << 30;
+
+    private final int blockSize;
+    private final int blocksPerBuffer;
+    private final ByteBuffer[] slab;
+    private final int[] freeBlocks;
+    private final long ttlNanos;
+    private final LongSupplier ticker;
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private int freeCount;
+    private long bytes;
+    private long epoch;
+
+    /**
+     * Constructs a PageCache holding up to the given number of bytes of pages for the given time, allocating the
+     * direct memory of the cache up front.
+     *
+     * @param capacity   the maximum number of bytes of the serialized pages, at least {@link #DEFAULT_BLOCK_SIZE} and
+     *                   rounded down to a multiple of it
+     * @param timeToLive the time a page is cached after it is queried
+     */
+    public PageCache(long capacity, @Nonnull Duration timeToLive) {
+        this(capacity, DEFAULT_BLOCK_SIZE, timeToLive, System::nanoTime);
+    }
+
+    PageCache(long capacity, int blockSize, @Nonnull Duration timeToLive, @Nonnull LongSupplier ticker) {
+        if (blockSize <= 0 || blockSize > MAX_BUFFER_SIZE) {
+            throw new IllegalArgumentException("Block size must be positive and at most " + MAX_BUFFER_SIZE + ": " + blockSize);
+        }
+        long blocks = capacity / blockSize;
+        if (blocks <= 0 || blocks > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capacity must be between " + blockSize + " and "
+                    + (long) Integer.MAX_VALUE * blockSize + " bytes: " + capacity);
+        }
+        if (timeToLive.isNegative() || timeToLive.isZero()) {
+            throw new IllegalArgumentException("Time to live must be positive: " + timeToLive);
+        }
+        this.blockSize = blockSize;
+        this.blocksPerBuffer = MAX_BUFFER_SIZE / blockSize;
+        this.slab = new ByteBuffer[(int) ((blocks + this.blocksPerBuffer - 1) / this.blocksPerBuffer)];
+        for (int i = 0; i < this.slab.length; i++) {
+            long buffer = Math.min(this.blocksPerBuffer, blocks - (long) i * this.blocksPerBuffer);
+            this.slab[i] = ByteBuffer.allocateDirect((int) buffer * blockSize);
+        }
+        this.freeBlocks = new int[(int) blocks];
+        for (int i = 0; i < this.freeBlocks.length; i++) {
+            this.freeBlocks[i] = this.freeBlocks.length - 1 - i;
+        }
+        this.freeCount = this.freeBlocks.length;
+        this.ttlNanos = timeToLive.toNanos();
+        this.ticker = Objects.requireNonNull(ticker);
+    }
+
+    /**
+     * Returns the cached page of the given key.
+     *
+     * @param key the key of the page
+     * @return the page, or null if it is not cached or expired
+     */
+    @Nullable
+    CachedPage get(@Nonnull Key key) {
+        CachedPage page = peek(key);
+        if (page == null) {
+            this.misses.increment();
+        } else {
+            this.hits.increment();
+        }
+        return page;
+    }
+
+    /**
+     * Returns the cached page of the given key without counting a hit or a miss.
+     *
+     * @param key the key of the page
+     * @return the page, or null if it is not cached or expired
+     */
+    @Nullable
+    CachedPage peek(@Nonnull Key key) {
+        byte[] data;
+        synchronized (this.entries) {
+            Entry entry = this.entries.get(key);
+            if (entry != null && entry.expiresAt - this.ticker.getAsLong() <= 0) {
+                remove(key);
+                this.evictions.increment();
+                entry = null;
+            }
+            if (entry == null) {
+                return null;
+            }
+            // The blocks are copied while they are held, as a concurrent eviction reuses them
+            data = new byte[entry.size];
+            for (int i = 0, offset = 0; offset < data.length; i++, offset += this.blockSize) {
+                int block = entry.blocks[i];
+                this.slab[block / this.blocksPerBuffer].get((block % this.blocksPerBuffer) * this.blockSize, data,
+                        offset, Math.min(this.blockSize, data.length - offset));
+            }
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        long totalElements = buffer.getLong();
+        boolean estimatedTotal = buffer.get() != 0;
+        return new CachedPage(totalElements, estimatedTotal,
+                new String(data, buffer.position(), buffer.remaining(), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Caches a page unless the cache was invalidated since the given epoch.
+     *
+     * @param key   the key of the page
+     * @param epoch the epoch observed before querying the page
+     * @param page  the page
+     */
+    void put(@Nonnull Key key, long epoch, @Nonnull CachedPage page) {
+        byte[] result = page.result().getBytes(StandardCharsets.UTF_8);
+        int size = Long.BYTES + Byte.BYTES + result.length;
+        int blockCount = (int) (((long) size + this.blockSize - 1) / this.blockSize);
+        if (blockCount > this.freeBlocks.length) {
+            return;
+        }
+        byte[] data = ByteBuffer.allocate(size)
+                .putLong(page.totalElements())
+                .put((byte) (page.estimatedTotal() ? 1 : 0))
+                .put(result)
+                .array();
+        synchronized (this.entries) {
+            // A write during the query may have changed the page
+            if (epoch != this.epoch) {
+                return;
+            }
+            remove(key);
+            Iterator<Entry> eldest = this.entries.values().iterator();
+            while (this.freeCount < blockCount) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                release(evicted);
+                this.evictions.increment();
+            }
+            int[] blocks = new int[blockCount];
+            for (int i = 0, offset = 0; i < blockCount; i++, offset += this.blockSize) {
+                int block = this.freeBlocks[--this.freeCount];
+                blocks[i] = block;
+                this.slab[block / this.blocksPerBuffer].put((block % this.blocksPerBuffer) * this.blockSize, data,
+                        offset, Math.min(this.blockSize, size - offset));
+            }
+            this.entries.put(key, new Entry(blocks, size, this.ticker.getAsLong() + this.ttlNanos));
+            this.bytes += size;
+        }
+    }
+
+    /**
+     * Returns the current epoch, which must be observed before querying a page to {@link #put} it.
+     *
+     * @return the epoch
+     */
+    long epoch() {
+        synchronized (this.entries) {
+            return this.epoch;
+        }
+    }
+
+    /**
+     * Removes all pages from the cache, including the pages being queried at the moment.
+     */
+    public void invalidateAll() {
+        synchronized (this.entries) {
+            this.epoch++;
+            this.entries.values().forEach(this::release);
+            this.entries.clear();
+        }
+    }
+
+    /**
+     * Returns the number of lookups that found a cached page.
+     *
+     * @return the number of hits
+     */
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to query the page.
+     *
+     * @return the number of misses
+     */
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of pages removed because of the capacity or their expiry.
+     *
+     * @return the number of evictions
+     */
+    public long evictions() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Returns the number of cached pages.
+     *
+     * @return the number of cached pages
+     */
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    /**
+     * Returns the number of bytes of the cached pages, not counting the unused space of their last blocks.
+     *
+     * @return the number of bytes
+     */
+    public long bytes() {
+        synchronized (this.entries) {
+            return this.bytes;
+        }
+    }
+
+    private void remove(@Nonnull Key key) {
+        Entry entry = this.entries.remove(key);
+        if (entry != null) {
+            release(entry);
+        }
+    }
+
+    /**
+     * Returns the blocks of a page removed from the entries to the free blocks.
+     */
+    private void release(@Nonnull Entry entry) {
+        for (int block : entry.blocks) {
+            this.freeBlocks[this.freeCount++] = block;
+        }
+        this.bytes -= entry.size;
+    }
+
+    /**
+     * The key of a cached page.
+     *
+     * @param sql        the SQL of the page query
+     * @param bindValues the bind values of the page query, including the offset and the limit
+     */
+    record Key(String sql, List<Object> bindValues) {
+    }
+
+    /**
+     * A cached page.
+     *
+     * @param totalElements  the total number of elements of the query
+     * @param estimatedTotal whether the total number of elements is estimated
+     * @param result         the rows of the page formatted as jOOQ JSON, including the header of the fields
+     */
+    record CachedPage(long totalElements, boolean estimatedTotal, String result) {
+    }
+
+    /**
+     * A cached page in the slab.
+     */
+    private static final class Entry {
+
+        private final int[] blocks;
+        private final int size;
+        private final long expiresAt;
+
+        private Entry(int[] blocks, int size, long expiresAt) {
+            this.blocks = blocks;
+            this.size = size;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.Table;
+import org.jooq.impl.DSL;
+
+import java.util.OptionalLong;
+
+/**
+ * Estimates the rows of a whole PostgreSQL table from {@code pg_class.reltuples}, and optionally the filtered rows from
+ * the row estimate of {@code EXPLAIN}.
+ */
+final class PostgresRowCountEstimator implements RowCountEstimator {
+
+    static final PostgresRowCountEstimator UNFILTERED = new PostgresRowCountEstimator(false);
+    static final PostgresRowCountEstimator FILTERED = new PostgresRowCountEstimator(true);
+
+    private final boolean filtered;
+
+    private PostgresRowCountEstimator(boolean filtered) {
+        this.filtered = filtered;
+    }
+
+    @Nonnull
+    @Override
+    public OptionalLong estimate(@Nonnull DSLContext context, @Nonnull Table<?> table, @Nonnull Condition condition) {
+        if (condition.equals(DSL.noCondition())) {
+            Double reltuples = context.resultQuery("SELECT reltuples FROM pg_class WHERE oid = to_regclass(?)", context.render(table))
+                    .fetchOptional(0, Double.class)
+                    .orElse(null);
+            // reltuples is -1 before the first VACUUM or ANALYZE, and 0 before PostgreSQL 14
+            return reltuples == null || reltuples <= 0 ? OptionalLong.empty() : OptionalLong.of(Math.round(reltuples));
+        } else if (this.filtered) {
+            double rows = context.explain(context.selectOne().from(table).where(condition)).rows();
+            return Double.isNaN(rows) ? OptionalLong.empty() : OptionalLong.of(Math.round(rows));
+        }
+        return OptionalLong.empty();
+    }
+}
@@ -0,0 +1,143 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import org.jooq.exception.DataAccessException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces identical concurrent page queries of {@link JooqRepository#query} into a single execution, keyed by the
+ * SQL and the bind values of the page query.
+ * <p>
+ * The first caller of a query executes it, including its count, and the callers arriving while it is in flight wait
+ * for its page instead of querying the database. The callers wait before they acquire a connection, so only the first
+ * caller holds a connection and a transaction. The waiters share the same page instance. Nothing is kept after the
+ * execution completes, so a query is coalesced only with the queries overlapping it in time. A failure is thrown to
+ * every waiter. A waiter giving up after the maximum wait executes the query itself.
+ * <p>
+ * A write through the repository detaches the queries in flight, so that the queries started after the write do not
+ * wait for the result of a query started before it.
+ * <p>
+ * A coalescer belongs to a single repository. Override {@link JooqRepository#queryCoalescer()} to enable it.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * private final QueryCoalescer queryCoalescer = new QueryCoalescer(Duration.ofSeconds(5));
+ *
+ * @Override
+ * protected QueryCoalescer queryCoalescer() {
+ *     return this.queryCoalescer;
+ * }
+ * }
+ * </pre>
+ */
+public final class QueryCoalescer {
+
+    private final long maxWaitNanos;
+    private final Map<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    /**
+     * Constructs a QueryCoalescer waiting up to the given time for a query in flight.
+     *
+     * @param maxWait the maximum time to wait for a query in flight before executing it independently
+     */
+    public QueryCoalescer(@Nonnull Duration maxWait) {
+        if (maxWait.isNegative() || maxWait.isZero()) {
+            throw new IllegalArgumentException("Max wait must be positive: " + maxWait);
+        }
+        this.maxWaitNanos = maxWait.toNanos();
+    }
+
+    /**
+     * Executes the given query, or waits for the result of the identical query in flight.
+     *
+     * @param key   the key of the query
+     * @param query the query
+     * @param <T>   the type of the result
+     * @return the result of the query
+     */
+    @SuppressWarnings("unchecked")
+    <T> T execute(@Nonnull Object key, @Nonnull Supplier<T> query) {
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> leader = this.inFlight.putIfAbsent(key, future);
+        if (leader != null) {
+            this.coalesced.increment();
+            try {
+                return (T) leader.get(this.maxWaitNanos, TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                this.timeouts.increment();
+                this.executions.increment();
+                return query.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                } else if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new DataAccessException("Coalesced query failed", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessException("Interrupted while waiting for a coalesced query", e);
+            }
+        }
+        this.executions.increment();
+        T result;
+        try {
+            result = query.get();
+        } catch (RuntimeException | Error e) {
+            this.inFlight.remove(key, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+        this.inFlight.remove(key, future);
+        future.complete(result);
+        return result;
+    }
+
+    /**
+     * Detaches the queries in flight, so that the following queries execute again instead of waiting for them.
+     */
+    public void invalidateAll() {
+        this.inFlight.clear();
+    }
+
+    /**
+     * Returns the number of queries executed by the callers.
+     *
+     * @return the number of executions
+     */
+    public long executions() {
+        return this.executions.sum();
+    }
+
+    /**
+     * Returns the number of callers that waited for a query in flight.
+     *
+     * @return the number of coalesced calls
+     */
+    public long coalesced() {
+        return this.coalesced.sum();
+    }
+
+    /**
+     * Returns the number of callers that stopped waiting for a query in flight after the maximum wait.
+     *
+     * @return the number of timeouts
+     */
+    public long timeouts() {
+        return this.timeouts.sum();
+    }
+}
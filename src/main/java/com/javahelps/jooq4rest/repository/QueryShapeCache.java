@@ -0,0 +1,116 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * A bounded LRU cache of the SQL rendered for the shapes of {@link com.javahelps.jooq4rest.condition.ShapedCondition}
+ * queries.
+ * <p>
+ * A cache belongs to a single repository. Override {@link JooqRepository#queryShapeCache()} to enable it.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * private final QueryShapeCache queryShapeCache = new QueryShapeCache(64);
+ *
+ * @Override
+ * protected QueryShapeCache queryShapeCache() {
+ *     return this.queryShapeCache;
+ * }
+ * }
+ * </pre>
+ */
+public final class QueryShapeCache {
+
+    private final int capacity;
+    private final Map<Key, Optional<ShapedQuery>> queries;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Constructs a QueryShapeCache holding up to the given number of shapes.
+     *
+     * @param capacity the maximum number of shapes
+     */
+    public QueryShapeCache(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.queries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Optional<ShapedQuery>> eldest) {
+                return size() > QueryShapeCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the cached query of the given key, rendering and caching it if it is absent.
+     *
+     * @param key    the key of the shape
+     * @param render the function rendering the query of the shape
+     * @return the query of the shape, or empty if the shape cannot be queried through the cache
+     */
+    @Nonnull
+    Optional<ShapedQuery> get(@Nonnull Key key, @Nonnull Function<Key, Optional<ShapedQuery>> render) {
+        synchronized (this.queries) {
+            Optional<ShapedQuery> query = this.queries.get(key);
+            if (query != null) {
+                this.hits.increment();
+                return query;
+            }
+        }
+        this.misses.increment();
+        Optional<ShapedQuery> query = render.apply(key);
+        synchronized (this.queries) {
+            this.queries.put(key, query);
+        }
+        return query;
+    }
+
+    /**
+     * Returns the number of lookups that found a cached query.
+     *
+     * @return the number of hits
+     */
+    public long hits() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups that had to render a query.
+     *
+     * @return the number of misses
+     */
+    public long misses() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the number of cached shapes.
+     *
+     * @return the number of cached shapes
+     */
+    public int size() {
+        synchronized (this.queries) {
+            return this.queries.size();
+        }
+    }
+
+    /**
+     * The key of a cached query.
+     *
+     * @param shape       the shape of the condition
+     * @param order       the order of the query
+     * @param windowCount true if the total is counted with a window function, false otherwise
+     */
+    record Key(String shape, Object order, boolean windowCount) {
+    }
+}
@@ -0,0 +1,224 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import org.jooq.*;
+import org.reactivestreams.FlowAdapters;
+import org.reactivestreams.Publisher;
+
+import java.lang.Record;
+import java.util.Objects;
+import java.util.concurrent.Flow;
+import java.util.function.Function;
+
+/**
+ * An base class for reactive JOOQ repositories publishing query results as they arrive from the database.
+ * <p>
+ * The queries are executed with jOOQ's reactive API, which is non-blocking when the DSL context is created from an
+ * R2DBC {@code ConnectionFactory}. Each subscription acquires its own connection, and releases it when the results are
+ * consumed, the query fails, or the subscription is cancelled.
+ *
+ * @param <E> the type of the entity record
+ * @param <P> the type of the projection record
+ * @param <I> the type of the entity identifier
+ */
+public class ReactiveJooqRepository<E extends Record, P extends Record, I> implements ReactiveRepository<E, P, I> {
+
+    private final DSLContext context;
+    protected final Table<? extends UpdatableRecord<?>> table;
+    private final Field<I> idField;
+    protected final Class<E> entityClass;
+    protected final Class<P> projectionClass;
+    private final TransactionMode transactionMode;
+
+    /**
+     * Constructs a ReactiveJooqRepository with the specified table, ID field, entity class, and projection class.
+     *
+     * @param context         the JOOQ DSL context, usually created from an R2DBC connection factory
+     * @param table           the JOOQ table
+     * @param idField         the field representing the entity ID
+     * @param entityClass     the class of the entity record
+     * @param projectionClass the class of the projection record
+     */
+    protected ReactiveJooqRepository(@Nonnull DSLContext context,
+                                     @Nonnull Table<? extends UpdatableRecord<?>> table,
+                                     @Nonnull Field<I> idField,
+                                     @Nonnull Class<E> entityClass,
+                                     @Nonnull Class<P> projectionClass) {
+        this(context, table, idField, entityClass, projectionClass, TransactionMode.WRITE_ONLY);
+    }
+
+    /**
+     * Constructs a ReactiveJooqRepository with the specified table, ID field, entity class, and projection class.
+     *
+     * @param context         the JOOQ DSL context, usually created from an R2DBC connection factory
+     * @param table           the JOOQ table
+     * @param idField         the field representing the entity ID
+     * @param entityClass     the class of the entity record
+     * @param projectionClass the class of the projection record
+     * @param transactionMode the transaction mode
+     */
+    protected ReactiveJooqRepository(@Nonnull DSLContext context,
+                                     @Nonnull Table<? extends UpdatableRecord<?>> table,
+                                     @Nonnull Field<I> idField,
+                                     @Nonnull Class<E> entityClass,
+                                     @Nonnull Class<P> projectionClass,
+                                     @Nonnull TransactionMode transactionMode) {
+        this.context = Objects.requireNonNull(context);
+        this.table = Objects.requireNonNull(table);
+        this.idField = Objects.requireNonNull(idField);
+        this.entityClass = Objects.requireNonNull(entityClass);
+        this.projectionClass = Objects.requireNonNull(projectionClass);
+        this.transactionMode = Objects.requireNonNull(transactionMode);
+    }
+
+    @Nonnull
+    @Override
+    public final Flow.Publisher<Long> count() {
+        return read(this::doCount, record -> record.value1().longValue());
+    }
+
+    /**
+     * Creates the query counting the number of records in the table.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context the DSL context
+     * @return the count query
+     */
+    @Nonnull
+    protected ResultQuery<Record1<Integer>> doCount(@Nonnull DSLContext context) {
+        return context.selectCount().from(this.table);
+    }
+
+    @Nonnull
+    @Override
+    public final Flow.Publisher<E> findById(@Nonnull I id) {
+        return read(context -> doFindById(context, id), record -> record.into(this.entityClass));
+    }
+
+    /**
+     * Creates the query finding an entity by its ID.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context the DSL context
+     * @param id      the ID of the entity to find
+     * @return the query
+     */
+    @Nonnull
+    protected ResultQuery<?> doFindById(@Nonnull DSLContext context, @Nonnull I id) {
+        return select(context)
+                .from(this.table)
+                .where(this.idField.eq(id));
+    }
+
+    @Nonnull
+    @Override
+    public final Flow.Publisher<E> findAll() {
+        return read(this::doFindAll, record -> record.into(this.entityClass));
+    }
+
+    /**
+     * Creates the query finding all entities in the table.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context the DSL context
+     * @return the query
+     */
+    @Nonnull
+    protected ResultQuery<?> doFindAll(@Nonnull DSLContext context) {
+        return select(context)
+                .from(this.table);
+    }
+
+    @Nonnull
+    @Override
+    public final Flow.Publisher<P> query(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        return read(context -> doQuery(context, condition, order, pageNumber, pageSize), record -> record.into(this.projectionClass));
+    }
+
+    /**
+     * Creates the query of a page with the specified condition, order, page number, and page size.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context    the DSL context
+     * @param condition  the condition to filter the query
+     * @param order      the order field to sort the query
+     * @param pageNumber the page number for pagination
+     * @param pageSize   the page size for pagination
+     * @return the query
+     */
+    @Nonnull
+    protected ResultQuery<?> doQuery(@Nonnull DSLContext context, @Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        return project(context)
+                .from(this.table)
+                .where(condition)
+                .orderBy(order)
+                .offset(pageNumber * pageSize)
+                .limit(pageSize);
+    }
+
+    @Nonnull
+    @Override
+    public final Flow.Publisher<P> stream(@Nonnull Condition condition, @Nonnull OrderField<?> order) {
+        return read(context -> doStream(context, condition, order), record -> record.into(this.projectionClass));
+    }
+
+    /**
+     * Creates the query of all entities with the specified condition and order.
+     * <p>
+     * Override this method to provide a custom implementation.
+     *
+     * @param context   the DSL context
+     * @param condition the condition to filter the query
+     * @param order     the order field to sort the query
+     * @return the query
+     */
+    @Nonnull
+    protected ResultQuery<?> doStream(@Nonnull DSLContext context, @Nonnull Condition condition, @Nonnull OrderField<?> order) {
+        return project(context)
+                .from(this.table)
+                .where(condition)
+                .orderBy(order);
+    }
+
+    /**
+     * Override this method to customize the select query.
+     *
+     * @param context the DSL context
+     * @return the select query
+     */
+    @Nonnull
+    protected SelectSelectStep<?> select(@Nonnull DSLContext context) {
+        return context.select();
+    }
+
+    /**
+     * Override this method to customize the projection query.
+     *
+     * @param context the DSL context
+     * @return the projection query
+     */
+    @Nonnull
+    protected SelectSelectStep<?> project(@Nonnull DSLContext context) {
+        return select(context);
+    }
+
+    /**
+     * Publishes the mapped records of a query, executing it in a reactive transaction if the transaction mode requires
+     * it. The query is created when a subscriber subscribes.
+     */
+    @Nonnull
+    private <R extends org.jooq.Record, T> Flow.Publisher<T> read(@Nonnull Function<DSLContext, ? extends ResultQuery<R>> query,
+                                                                  @Nonnull Function<? super R, ? extends T> mapper) {
+        Publisher<R> records;
+        if (this.transactionMode.isTransactionalRead()) {
+            records = this.context.transactionPublisher(configuration -> query.apply(configuration.dsl()));
+        } else {
+            records = subscriber -> query.apply(this.context).subscribe(subscriber);
+        }
+        return new MappingPublisher<>(FlowAdapters.toFlowPublisher(records), mapper);
+    }
+}
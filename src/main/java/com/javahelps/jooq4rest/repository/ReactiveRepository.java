@@ -0,0 +1,72 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import org.jooq.Condition;
+import org.jooq.OrderField;
+
+import java.util.concurrent.Flow;
+
+/**
+ * A repository interface publishing query results as they arrive from the database, with backpressure.
+ * <p>
+ * Nothing is executed until a subscriber subscribes. Cancelling the subscription stops the query and releases its
+ * connection.
+ *
+ * @param <E> the type of the entity record
+ * @param <P> the type of the projection record
+ * @param <I> the type of the entity identifier
+ * @see Repository
+ */
+public interface ReactiveRepository<E extends Record, P extends Record, I> {
+
+    /**
+     * Counts the total number of entities.
+     *
+     * @return a publisher of the total number of entities
+     */
+    @Nonnull
+    Flow.Publisher<Long> count();
+
+    /**
+     * Finds an entity by its ID.
+     *
+     * @param id the entity ID
+     * @return a publisher of the entity if found, or an empty publisher if not found
+     */
+    @Nonnull
+    Flow.Publisher<E> findById(@Nonnull I id);
+
+    /**
+     * Finds all entities.
+     *
+     * @return a publisher of all entities
+     */
+    @Nonnull
+    Flow.Publisher<E> findAll();
+
+    /**
+     * Queries a page of entities with sorting.
+     * <p>
+     * Unlike {@link Repository#query(Condition, OrderField, int, int)}, only the content of the page is published,
+     * without counting the total number of entities.
+     *
+     * @param condition  the condition to filter entities
+     * @param order      the order field to sort entities
+     * @param pageNumber the page number (0-based)
+     * @param pageSize   the number of items per page
+     * @return a publisher of the projection records in the page
+     */
+    @Nonnull
+    Flow.Publisher<P> query(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize);
+
+    /**
+     * Queries all entities matching the condition in the given order.
+     *
+     * @param condition the condition to filter entities
+     * @param order     the order field to sort entities
+     * @return a publisher of the projection records
+     */
+    @Nonnull
+    Flow.Publisher<P> stream(@Nonnull Condition condition, @Nonnull OrderField<?> order);
+
+}
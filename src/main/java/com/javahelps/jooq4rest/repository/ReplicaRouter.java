@@ -0,0 +1,171 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Routes the reads of repositories to read replicas, while the writes go to the primary context of each repository.
+ * <p>
+ * Replicas lag behind the primary, so a read right after a write may not see the write. If a read-your-writes window
+ * is set, all reads through the router go to the primary for that long after any write through a repository using
+ * this router. The window belongs to the router rather than to a thread, so it also holds when the write and the read
+ * run on different threads, as the operations of an {@link AsyncRepository} do. Writes shorter apart than the window
+ * keep every read on the primary. Share a router between the repositories of a database to extend the window over
+ * all of them.
+ * <p>
+ * A router belongs to one or more repositories. Override {@link JooqRepository#replicaRouter()} to enable it.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * private static final ReplicaRouter ROUTER = new ReplicaRouter(List.of(replica1, replica2),
+ *         ReplicaSelection.LEAST_LOADED, Duration.ofSeconds(2));
+ *
+ * @Override
+ * protected ReplicaRouter replicaRouter() {
+ *     return ROUTER;
+ * }
+ * }
+ * </pre>
+ */
+public final class ReplicaRouter {
+
+    private final List<Replica> replicas;
+    private final ReplicaSelection selection;
+    private final long readYourWritesNanos;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicLong lastWrite;
+
+    /**
+     * Constructs a ReplicaRouter without read-your-writes consistency.
+     *
+     * @param replicas  the DSL contexts of the replicas
+     * @param selection the strategy to choose the replica of a read
+     */
+    public ReplicaRouter(@Nonnull List<DSLContext> replicas, @Nonnull ReplicaSelection selection) {
+        this(replicas, selection, Duration.ZERO);
+    }
+
+    /**
+     * Constructs a ReplicaRouter reading from the primary for the given time after a write.
+     *
+     * @param replicas            the DSL contexts of the replicas
+     * @param selection           the strategy to choose the replica of a read
+     * @param readYourWritesWindow the time reads go to the primary after a write, usually longer than the replication
+     *                            lag, or zero to always read from the replicas
+     */
+    public ReplicaRouter(@Nonnull List<DSLContext> replicas, @Nonnull ReplicaSelection selection, @Nonnull Duration readYourWritesWindow) {
+        if (replicas.isEmpty()) {
+            throw new IllegalArgumentException("At least one replica is required");
+        }
+        if (readYourWritesWindow.isNegative()) {
+            throw new IllegalArgumentException("Read-your-writes window must not be negative: " + readYourWritesWindow);
+        }
+        List<Replica> wrapped = new ArrayList<>(replicas.size());
+        for (DSLContext replica : replicas) {
+            wrapped.add(new Replica(replica));
+        }
+        this.replicas = List.copyOf(wrapped);
+        this.selection = Objects.requireNonNull(selection);
+        this.readYourWritesNanos = readYourWritesWindow.toNanos();
+        // No write is within the window at first
+        this.lastWrite = new AtomicLong(System.nanoTime() - this.readYourWritesNanos);
+    }
+
+    /**
+     * Chooses the context of a read.
+     *
+     * @param primary the primary context of the repository
+     * @return the primary context if there was a write within the read-your-writes window, or a replica context
+     * otherwise
+     */
+    @Nonnull
+    DSLContext readContext(@Nonnull DSLContext primary) {
+        if (System.nanoTime() - this.lastWrite.get() < this.readYourWritesNanos) {
+            return primary;
+        }
+        return select().context;
+    }
+
+    /**
+     * Starts the read-your-writes window. Repositories call this method after each write, and applications may call it
+     * after writing by other means.
+     */
+    public void written() {
+        if (this.readYourWritesNanos > 0) {
+            this.lastWrite.set(System.nanoTime());
+        }
+    }
+
+    /**
+     * Returns the number of connections in use by the router for each replica.
+     *
+     * @return the number of connections in use in the order of the replicas
+     */
+    @Nonnull
+    public List<Integer> activeConnections() {
+        return this.replicas.stream()
+                .map(replica -> replica.active.get())
+                .toList();
+    }
+
+    @Nonnull
+    private Replica select() {
+        int size = this.replicas.size();
+        int start = Math.floorMod(this.next.getAndIncrement(), size);
+        if (this.selection == ReplicaSelection.ROUND_ROBIN) {
+            return this.replicas.get(start);
+        }
+        // Starting from the next replica in turn spreads the reads among equally loaded replicas
+        Replica leastLoaded = this.replicas.get(start);
+        for (int i = 1; i < size; i++) {
+            Replica replica = this.replicas.get((start + i) % size);
+            if (replica.active.get() < leastLoaded.active.get()) {
+                leastLoaded = replica;
+            }
+        }
+        return leastLoaded;
+    }
+
+    /**
+     * A replica counting its connections in use through a wrapped connection provider.
+     */
+    private static final class Replica implements ConnectionProvider {
+
+        private final ConnectionProvider connectionProvider;
+        private final DSLContext context;
+        private final AtomicInteger active = new AtomicInteger();
+
+        private Replica(@Nonnull DSLContext context) {
+            this.connectionProvider = context.configuration().connectionProvider();
+            this.context = context.configuration().derive(this).dsl();
+        }
+
+        @Nullable
+        @Override
+        public Connection acquire() {
+            Connection connection = this.connectionProvider.acquire();
+            this.active.incrementAndGet();
+            return connection;
+        }
+
+        @Override
+        public void release(@Nullable Connection connection) {
+            try {
+                this.connectionProvider.release(connection);
+            } finally {
+                this.active.decrementAndGet();
+            }
+        }
+    }
+}
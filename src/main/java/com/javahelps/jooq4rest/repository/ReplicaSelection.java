@@ -0,0 +1,15 @@
+package com.javahelps.jooq4rest.repository;
+
+/**
+ * Strategies of a {@link ReplicaRouter} to choose the replica of a read.
+ */
+public enum ReplicaSelection {
+    /**
+     * Chooses the replicas in turn.
+     */
+    ROUND_ROBIN,
+    /**
+     * Chooses the replica with the fewest connections in use by the router.
+     */
+    LEAST_LOADED
+}
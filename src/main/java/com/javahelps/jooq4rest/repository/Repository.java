@@ -1,12 +1,19 @@
 package com.javahelps.jooq4rest.repository;
 
+import com.javahelps.jooq4rest.condition.ShapedCondition;
+import com.javahelps.jooq4rest.page.CursorPage;
 import com.javahelps.jooq4rest.page.Page;
+import com.javahelps.jooq4rest.page.Slice;
 import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
 import org.jooq.Condition;
 import org.jooq.OrderField;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * A repository interface for performing CRUD operations and queries using JOOQ.
@@ -41,6 +48,15 @@ public interface Repository<E extends Record, P extends Record, I> {
     @Nonnull
     Optional<E> findById(@Nonnull I id);
 
+    /**
+     * Finds the entities with the given IDs.
+     *
+     * @param ids the entity IDs
+     * @return a map of the found entities by their IDs, in the order of the given IDs
+     */
+    @Nonnull
+    Map<I, E> findAllById(@Nonnull Collection<I> ids);
+
     /**
      * Finds all entities.
      *
@@ -49,6 +65,17 @@ public interface Repository<E extends Record, P extends Record, I> {
     @Nonnull
     List<E> findAll();
 
+    /**
+     * Streams all entities without loading them into memory at once.
+     * <p>
+     * The stream holds a database cursor in a transaction of its own, or of the current unit of work, and must be
+     * closed after use, preferably with a try-with-resources block.
+     *
+     * @return a stream of all entities
+     */
+    @Nonnull
+    Stream<E> streamAll();
+
     /**
      * Inserts a new entity.
      *
@@ -74,6 +101,49 @@ public interface Repository<E extends Record, P extends Record, I> {
      */
     int delete(@Nonnull I id);
 
+    /**
+     * Inserts an entity or updates it if an entity with the same key already exists, in a single atomic statement.
+     *
+     * @param entity the entity to insert or update
+     * @return the number of rows affected
+     */
+    int upsert(@Nonnull E entity);
+
+    /**
+     * Inserts entities or updates the ones with existing keys in batches.
+     * <p>
+     * The given entities must have distinct keys.
+     *
+     * @param entities the entities to insert or update
+     * @return the number of rows affected
+     */
+    int upsertAll(@Nonnull Collection<E> entities);
+
+    /**
+     * Inserts new entities in batches.
+     *
+     * @param entities the entities to insert
+     * @return the IDs of the inserted entities in the order of the given entities
+     */
+    @Nonnull
+    List<I> insertAll(@Nonnull Collection<E> entities);
+
+    /**
+     * Updates existing entities in batches.
+     *
+     * @param entities the entities to update
+     * @return the number of rows affected
+     */
+    int updateAll(@Nonnull Collection<E> entities);
+
+    /**
+     * Deletes entities by their IDs in batches.
+     *
+     * @param ids the entity IDs
+     * @return the number of rows affected
+     */
+    int deleteAll(@Nonnull Collection<I> ids);
+
     /**
      * Queries entities with pagination and sorting.
      *
@@ -86,4 +156,63 @@ public interface Repository<E extends Record, P extends Record, I> {
     @Nonnull
     Page<P> query(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize);
 
+    /**
+     * Queries entities with pagination and sorting using a condition extracted by
+     * {@link com.javahelps.jooq4rest.condition.ConditionExtractor#extractShaped(Object)}.
+     * <p>
+     * Implementations may reuse the SQL rendered for previous queries of the same shape.
+     *
+     * @param condition  the shaped condition to filter entities
+     * @param order      the order field to sort entities
+     * @param pageNumber the page number (0-based)
+     * @param pageSize   the number of items per page
+     * @return a page of projection records
+     */
+    @Nonnull
+    Page<P> query(@Nonnull ShapedCondition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize);
+
+    /**
+     * Streams entities matching the condition in the given order without loading them into memory at once.
+     * <p>
+     * The stream holds a database cursor in a transaction of its own, or of the current unit of work, and must be
+     * closed after use, preferably with a try-with-resources block.
+     *
+     * @param condition the condition to filter entities
+     * @param order     the order field to sort entities
+     * @return a stream of projection records
+     */
+    @Nonnull
+    Stream<P> stream(@Nonnull Condition condition, @Nonnull OrderField<?> order);
+
+    /**
+     * Queries entities with pagination and sorting without counting the total number of entities.
+     * <p>
+     * Use this method instead of {@link #query(Condition, OrderField, int, int)} when only the existence of a next
+     * page is needed.
+     *
+     * @param condition  the condition to filter entities
+     * @param order      the order field to sort entities
+     * @param pageNumber the page number (0-based)
+     * @param pageSize   the number of items per page
+     * @return a slice of projection records
+     */
+    @Nonnull
+    Slice<P> slice(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize);
+
+    /**
+     * Queries entities with keyset pagination and sorting.
+     * <p>
+     * Instead of skipping the rows of the previous pages, the page starts right after (or before) the row encoded in
+     * the cursor. Therefore, the cost of fetching a page does not grow with its depth.
+     *
+     * @param condition the condition to filter entities
+     * @param order     the order field to sort entities
+     * @param cursor    the cursor of the page to fetch, or null to fetch the first page
+     * @param pageSize  the number of items per page
+     * @return a cursor page of projection records
+     * @throws IllegalArgumentException if the cursor is malformed or was created for another order
+     */
+    @Nonnull
+    CursorPage<P> seek(@Nonnull Condition condition, @Nonnull OrderField<?> order, @Nullable String cursor, int pageSize);
+
 }
\ No newline at end of file
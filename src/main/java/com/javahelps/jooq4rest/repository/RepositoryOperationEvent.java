@@ -0,0 +1,47 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nullable;
+
+import jdk.jfr.*;
+
+/**
+ * A Java Flight Recorder event of an operation of a {@link JooqRepository}.
+ * <p>
+ * The event is disabled by default. Enable {@code com.javahelps.jooq4rest.RepositoryOperation} in a JFR settings file
+ * or with {@code jfr configure}, optionally with a threshold to record only slow operations. JDBC events recorded on
+ * the same thread during the event can then be attributed to the operation.
+ */
+@Name("com.javahelps.jooq4rest.RepositoryOperation")
+@Label("Repository Operation")
+@Category({"jooq4rest"})
+@Description("Operation of a jOOQ repository")
+@Enabled(false)
+final class RepositoryOperationEvent extends Event {
+
+    @Label("Operation")
+    @Nullable
+    String operation;
+
+    @Label("Table")
+    @Nullable
+    String table;
+
+    @Label("Page Number")
+    @Description("The requested page number, or -1 if the operation is not paginated by number")
+    int pageNumber = -1;
+
+    @Label("Page Size")
+    @Description("The requested page size, or -1 if the operation is not paginated")
+    int pageSize = -1;
+
+    @Label("Rows")
+    @Description("The number of rows returned or affected by the operation")
+    long rows;
+
+    @Label("Transactional")
+    @Description("True if the operation ran in a transaction started by the repository")
+    boolean transactional;
+
+    @Label("Failed")
+    boolean failed;
+}
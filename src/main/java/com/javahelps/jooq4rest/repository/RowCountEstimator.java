@@ -0,0 +1,90 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import org.jooq.Condition;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.Table;
+
+import java.util.OptionalLong;
+
+/**
+ * Estimates the number of rows of a table matching a condition from the statistics of the database, without scanning
+ * the table. Used by {@link CountStrategy#ESTIMATED}.
+ * <p>
+ * Override {@link JooqRepository#rowCountEstimator()} to use an estimator other than the one of the dialect.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * @Override
+ * protected RowCountEstimator rowCountEstimator() {
+ *     return RowCountEstimator.postgres(true);
+ * }
+ * }
+ * </pre>
+ */
+@FunctionalInterface
+public interface RowCountEstimator {
+
+    /**
+     * Estimates the number of rows of the table matching the condition.
+     *
+     * @param context   the DSL context
+     * @param table     the table
+     * @param condition the condition, which is {@link org.jooq.impl.DSL#noCondition()} to estimate all rows
+     * @return the estimated number of rows, or an empty optional if there is no estimate and the rows must be counted
+     */
+    @Nonnull
+    OptionalLong estimate(@Nonnull DSLContext context, @Nonnull Table<?> table, @Nonnull Condition condition);
+
+    /**
+     * Returns the estimator of the given dialect, which estimates the rows of a whole table in H2 and PostgreSQL, and
+     * has no estimate otherwise.
+     *
+     * @param dialect the SQL dialect
+     * @return the estimator
+     */
+    @Nonnull
+    static RowCountEstimator forDialect(@Nonnull SQLDialect dialect) {
+        return switch (dialect.family()) {
+            case H2 -> h2();
+            case POSTGRES -> postgres(false);
+            default -> none();
+        };
+    }
+
+    /**
+     * Returns an estimator reading the {@code ROW_COUNT_ESTIMATE} of {@code INFORMATION_SCHEMA.TABLES} in H2. Filtered
+     * rows are not estimated.
+     *
+     * @return the estimator
+     */
+    @Nonnull
+    static RowCountEstimator h2() {
+        return H2RowCountEstimator.INSTANCE;
+    }
+
+    /**
+     * Returns an estimator reading {@code pg_class.reltuples} in PostgreSQL, which is updated by {@code VACUUM} and
+     * {@code ANALYZE}. Filtered rows are estimated by the row estimate of the planner if requested, which can be off by
+     * orders of magnitude for correlated or skewed columns.
+     *
+     * @param filtered whether to estimate filtered rows with {@code EXPLAIN}
+     * @return the estimator
+     */
+    @Nonnull
+    static RowCountEstimator postgres(boolean filtered) {
+        return filtered ? PostgresRowCountEstimator.FILTERED : PostgresRowCountEstimator.UNFILTERED;
+    }
+
+    /**
+     * Returns an estimator without estimates, so that all rows are counted.
+     *
+     * @return the estimator
+     */
+    @Nonnull
+    static RowCountEstimator none() {
+        return (context, table, condition) -> OptionalLong.empty();
+    }
+}
@@ -0,0 +1,34 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jooq.Field;
+
+import java.util.List;
+
+/**
+ * The SQL rendered for a shape of {@link com.javahelps.jooq4rest.condition.ShapedCondition} queries.
+ *
+ * @param pageSql    the SQL of the page select
+ * @param pageFields the fields of the page select, which carry the converters and bindings of the projection
+ * @param limitFirst true if the limit is bound before the offset, false otherwise
+ * @param countSql   the SQL of the count select, or null if the total is counted by the page select
+ */
+record ShapedQuery(String pageSql, List<Field<?>> pageFields, boolean limitFirst, @Nullable String countSql) {
+
+    /**
+     * Creates the bind values of the page select.
+     *
+     * @param bindValues the bind values of the condition
+     * @param offset     the offset of the page
+     * @param limit      the limit of the page
+     * @return the bind values of the page select
+     */
+    @Nonnull
+    Object[] pageBindValues(@Nonnull List<Object> bindValues, int offset, int limit) {
+        Object[] values = bindValues.toArray(new Object[bindValues.size() + 2]);
+        values[bindValues.size()] = this.limitFirst ? limit : offset;
+        values[bindValues.size() + 1] = this.limitFirst ? offset : limit;
+        return values;
+    }
+}
@@ -0,0 +1,18 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * A statement reported by a {@link SlowQueryListener} because its execution exceeded the threshold.
+ *
+ * @param sql        the SQL of the statement, with placeholders for the bind values
+ * @param bindValues the bind values of the statement
+ * @param duration   the time the statement took to execute
+ * @param plan       the execution plan of the statement, or null if it was not explained
+ * @param suppressed the number of slow statements not reported since the previous report because of the rate limit
+ */
+public record SlowQuery(String sql, List<Object> bindValues, Duration duration, @Nullable String plan, long suppressed) {
+}
@@ -0,0 +1,226 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jooq.Configuration;
+import org.jooq.ConnectionProvider;
+import org.jooq.DSLContext;
+import org.jooq.ExecuteContext;
+import org.jooq.ExecuteListener;
+import org.jooq.ExecuteListenerProvider;
+import org.jooq.Query;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * A jOOQ {@link ExecuteListener} reporting the statements executing longer than a threshold, together with their bind
+ * values and optionally their execution plan.
+ * <p>
+ * The duration is the time to execute the statement, excluding the time to fetch its results. A statement failing
+ * after the threshold, such as a statement cancelled by a query timeout, is reported as well. When enabled, the plan is
+ * queried with the {@code EXPLAIN} statement of the dialect once the results of the slow statement are closed, since
+ * many drivers cannot run a statement on a connection with an open result. The plan is queried on the connection of
+ * the slow statement if it is still open, as in a transaction, or otherwise on a connection of the repository. The
+ * number of reports is limited per minute, so that the listener can stay enabled under load when many statements
+ * become slow at once. The statements over the limit are only counted.
+ * <p>
+ * A listener belongs to a single repository. Override {@link JooqRepository#slowQueryListener()} to enable it.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * private final SlowQueryListener slowQueryListener = new SlowQueryListener(Duration.ofMillis(500), true, 10,
+ *         slowQuery -> LOGGER.warn("Slow query: {}", slowQuery));
+ *
+ * @Override
+ * protected SlowQueryListener slowQueryListener() {
+ *     return this.slowQueryListener;
+ * }
+ * }
+ * </pre>
+ */
+public final class SlowQueryListener implements ExecuteListener {
+
+    private static final String START = SlowQueryListener.class.getName() + ".start";
+    private static final String PENDING = SlowQueryListener.class.getName() + ".pending";
+    private static final String CONNECTION_PROVIDER = SlowQueryListener.class.getName() + ".connectionProvider";
+    private static final long WINDOW = TimeUnit.MINUTES.toNanos(1);
+    private static final System.Logger LOGGER = System.getLogger(SlowQueryListener.class.getName());
+
+    private final long thresholdNanos;
+    private final boolean explain;
+    private final int maxReportsPerMinute;
+    private final Consumer<SlowQuery> reporter;
+    private final LongSupplier ticker;
+    private long windowStart;
+    private int reports;
+    private long suppressed;
+
+    /**
+     * Constructs a SlowQueryListener logging up to 60 statements per minute exceeding the given threshold as warnings
+     * of the {@link System.Logger} of this class, without their execution plan.
+     *
+     * @param threshold the minimum duration of a reported statement
+     */
+    public SlowQueryListener(@Nonnull Duration threshold) {
+        this(threshold, false, 60, SlowQueryListener::log);
+    }
+
+    /**
+     * Constructs a SlowQueryListener reporting the statements exceeding the given threshold to the given reporter.
+     *
+     * @param threshold           the minimum duration of a reported statement
+     * @param explain             true to attach the execution plan of the reported statements
+     * @param maxReportsPerMinute the maximum number of statements reported and explained per minute
+     * @param reporter            the consumer of the reports, called on the thread executing the statement
+     */
+    public SlowQueryListener(@Nonnull Duration threshold,
+                             boolean explain,
+                             int maxReportsPerMinute,
+                             @Nonnull Consumer<SlowQuery> reporter) {
+        this(threshold, explain, maxReportsPerMinute, reporter, System::nanoTime);
+    }
+
+    SlowQueryListener(@Nonnull Duration threshold,
+                      boolean explain,
+                      int maxReportsPerMinute,
+                      @Nonnull Consumer<SlowQuery> reporter,
+                      @Nonnull LongSupplier ticker) {
+        if (threshold.isNegative()) {
+            throw new IllegalArgumentException("Threshold must not be negative: " + threshold);
+        }
+        if (maxReportsPerMinute <= 0) {
+            throw new IllegalArgumentException("Max reports per minute must be positive: " + maxReportsPerMinute);
+        }
+        this.thresholdNanos = threshold.toNanos();
+        this.explain = explain;
+        this.maxReportsPerMinute = maxReportsPerMinute;
+        this.reporter = Objects.requireNonNull(reporter);
+        this.ticker = Objects.requireNonNull(ticker);
+        this.windowStart = ticker.getAsLong();
+    }
+
+    @Override
+    public void executeStart(ExecuteContext ctx) {
+        ctx.data(START, this.ticker.getAsLong());
+    }
+
+    @Override
+    public void executeEnd(ExecuteContext ctx) {
+        check(ctx);
+    }
+
+    @Override
+    public void exception(ExecuteContext ctx) {
+        check(ctx);
+    }
+
+    @Override
+    public void end(ExecuteContext ctx) {
+        if (ctx.data().remove(PENDING) instanceof Pending pending) {
+            this.reporter.accept(new SlowQuery(pending.sql(), pending.bindValues(), pending.duration(),
+                    explain(ctx, pending.query()), pending.suppressed()));
+        }
+    }
+
+    /**
+     * Installs this listener on the given context, remembering the connection provider of the context to explain the
+     * statements whose connection is released before their results are closed.
+     *
+     * @param context the context to install the listener on
+     * @return the derived context with the listener
+     */
+    @Nonnull
+    DSLContext install(@Nonnull DSLContext context) {
+        Configuration configuration = context.configuration().deriveAppending(this);
+        configuration.data(CONNECTION_PROVIDER, context.configuration().connectionProvider());
+        return configuration.dsl();
+    }
+
+    private void check(@Nonnull ExecuteContext ctx) {
+        if (!(ctx.data().remove(START) instanceof Long start)) {
+            return;
+        }
+        long duration = this.ticker.getAsLong() - start;
+        if (duration < this.thresholdNanos) {
+            return;
+        }
+        long suppressed = acquire();
+        if (suppressed < 0) {
+            return;
+        }
+        Query query = ctx.batchQueries().length > 1 ? null : ctx.query();
+        String sql = ctx.sql() != null ? ctx.sql() : String.join(";\n", ctx.batchSQL());
+        List<Object> bindValues = query != null ? query.getBindValues() : List.of();
+        if (this.explain && query != null && ctx.exception() == null) {
+            // The statement is explained at the end, after its results are closed
+            ctx.data(PENDING, new Pending(sql, bindValues, Duration.ofNanos(duration), suppressed, query));
+            return;
+        }
+        this.reporter.accept(new SlowQuery(sql, bindValues, Duration.ofNanos(duration), null, suppressed));
+    }
+
+    /**
+     * Takes a report from the rate limit.
+     *
+     * @return the number of statements suppressed since the previous report, or -1 if the limit is exhausted
+     */
+    private synchronized long acquire() {
+        long now = this.ticker.getAsLong();
+        if (now - this.windowStart >= WINDOW) {
+            this.windowStart = now;
+            this.reports = 0;
+        }
+        if (this.reports >= this.maxReportsPerMinute) {
+            this.suppressed++;
+            return -1;
+        }
+        this.reports++;
+        long suppressed = this.suppressed;
+        this.suppressed = 0;
+        return suppressed;
+    }
+
+    @Nullable
+    private static String explain(@Nonnull ExecuteContext ctx, @Nonnull Query query) {
+        try {
+            Configuration configuration;
+            Connection connection = ctx.connection();
+            if (connection != null && !connection.isClosed()) {
+                configuration = ctx.configuration().derive(connection);
+            } else if (ctx.configuration().data(CONNECTION_PROVIDER) instanceof ConnectionProvider connectionProvider) {
+                // The connection was released after fetching the results, so no other connection is held meanwhile
+                configuration = ctx.configuration().derive(connectionProvider);
+            } else {
+                return null;
+            }
+            // A context without listeners does not report the EXPLAIN statement itself
+            return configuration
+                    .derive(new ExecuteListenerProvider[0])
+                    .dsl()
+                    .explain(query)
+                    .plan();
+        } catch (RuntimeException | SQLException e) {
+            LOGGER.log(System.Logger.Level.DEBUG, "Failed to explain the slow query", e);
+            return null;
+        }
+    }
+
+    private static void log(@Nonnull SlowQuery slowQuery) {
+        LOGGER.log(System.Logger.Level.WARNING, "Slow query ({0} ms, {1} suppressed): {2} {3}",
+                slowQuery.duration().toMillis(), slowQuery.suppressed(), slowQuery.sql(), slowQuery.bindValues());
+    }
+
+    /**
+     * A slow statement to report once its results are closed.
+     */
+    private record Pending(String sql, List<Object> bindValues, Duration duration, long suppressed, Query query) {
+    }
+}
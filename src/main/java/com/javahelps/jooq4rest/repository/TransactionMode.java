@@ -1,16 +1,25 @@
 package com.javahelps.jooq4rest.repository;
 
 public enum TransactionMode {
-    NONE(false, false),
-    WRITE_ONLY(false, true),
-    READ_WRITE(true, true);
+    NONE(false, false, false),
+    WRITE_ONLY(false, true, false),
+    READ_WRITE(true, true, false),
+    /**
+     * Like {@link #READ_WRITE}, but the reads run in read-only transactions of the isolation level of
+     * {@link JooqRepository#readIsolation()}, so that all the statements of a read see the same snapshot. The reads of a
+     * single statement, such as {@link Repository#exists(Object)} and {@link Repository#findById(Object)}, run without a
+     * transaction.
+     */
+    SNAPSHOT_READ_WRITE(true, true, true);
 
     private final boolean transactionalRead;
     private final boolean transactionalWrite;
+    private final boolean readOnlyRead;
 
-    TransactionMode(boolean transactionalRead, boolean transactionalWrite) {
+    TransactionMode(boolean transactionalRead, boolean transactionalWrite, boolean readOnlyRead) {
         this.transactionalRead = transactionalRead;
         this.transactionalWrite = transactionalWrite;
+        this.readOnlyRead = readOnlyRead;
     }
 
     public boolean isTransactionalRead() {
@@ -20,4 +29,8 @@ public enum TransactionMode {
     public boolean isTransactionalWrite() {
         return transactionalWrite;
     }
+
+    public boolean isReadOnlyRead() {
+        return readOnlyRead;
+    }
 }
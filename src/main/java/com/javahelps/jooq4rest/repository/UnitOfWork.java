@@ -0,0 +1,258 @@
+package com.javahelps.jooq4rest.repository;
+
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jooq.Configuration;
+import org.jooq.DSLContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A transaction scope grouping the operations of several repositories into a single transaction.
+ * <p>
+ * The operations of the {@link JooqRepository}s constructed with the context of the scope, called on the thread of the
+ * scope, join its transaction instead of starting their own, whatever their {@link TransactionMode}. They bypass the
+ * entity and page caches, which must not see the uncommitted rows, and the caches are invalidated once more after the
+ * transaction ends.
+ * <p>
+ * The writes registered with {@link #insert}, {@link #update}, {@link #upsert} and {@link #delete} are buffered
+ * instead, and flushed as JDBC batches of the consecutive writes of the same kind and repository before the next
+ * repository operation of the scope, and at the latest before the commit. The writes that need a result, such as the
+ * generated ID of an insert, are made through the repository as usual.
+ * <p>
+ * A scope opened while another scope of the same context is active on the thread joins the outer scope.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * Long id = UnitOfWork.transactionResult(context, unitOfWork -> {
+ *     Long aliceId = personRepository.insert(alice);
+ *     unitOfWork.update(personRepository, jane);
+ *     unitOfWork.delete(personRepository, 4L);
+ *     return aliceId;
+ * });
+ * }
+ * </pre>
+ */
+public final class UnitOfWork {
+
+    private static final ThreadLocal<UnitOfWork> CURRENT = new ThreadLocal<>();
+
+    private final DSLContext root;
+    private final Configuration configuration;
+    private final List<Write> writes = new ArrayList<>();
+    private final List<Runnable> afterCompletion = new ArrayList<>();
+
+    private UnitOfWork(@Nonnull DSLContext root, @Nonnull Configuration configuration) {
+        this.root = root;
+        this.configuration = configuration;
+    }
+
+    /**
+     * Runs the given work in a transaction of the given context, committing it if the work completes and rolling it
+     * back if the work or a buffered write fails.
+     *
+     * @param context the context of the repositories joining the scope
+     * @param work    the work
+     * @param <T>     the type of the result
+     * @return the result of the work
+     */
+    public static <T> T transactionResult(@Nonnull DSLContext context, @Nonnull Function<UnitOfWork, T> work) {
+        Objects.requireNonNull(work);
+        UnitOfWork outer = CURRENT.get();
+        if (outer != null && outer.root == context) {
+            return work.apply(outer);
+        }
+        List<Runnable> afterCompletion = new ArrayList<>();
+        T completed;
+        try {
+            completed = context.transactionResult(configuration -> {
+                UnitOfWork unitOfWork = new UnitOfWork(context, configuration);
+                CURRENT.set(unitOfWork);
+                try {
+                    T result = work.apply(unitOfWork);
+                    unitOfWork.flush();
+                    return result;
+                } finally {
+                    afterCompletion.addAll(unitOfWork.afterCompletion);
+                    if (outer == null) {
+                        CURRENT.remove();
+                    } else {
+                        CURRENT.set(outer);
+                    }
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            runAll(afterCompletion, e);
+            throw e;
+        }
+        runAll(afterCompletion, null);
+        return completed;
+    }
+
+    /**
+     * Runs the given work in a transaction of the given context.
+     *
+     * @param context the context of the repositories joining the scope
+     * @param work    the work
+     * @see #transactionResult(DSLContext, Function)
+     */
+    public static void transaction(@Nonnull DSLContext context, @Nonnull Consumer<UnitOfWork> work) {
+        Objects.requireNonNull(work);
+        transactionResult(context, unitOfWork -> {
+            work.accept(unitOfWork);
+            return null;
+        });
+    }
+
+    /**
+     * Buffers the insert of an entity.
+     *
+     * @param repository the repository of the entity
+     * @param entity     the entity to insert
+     * @param <E>        the type of the entity record
+     */
+    public <E extends Record> void insert(@Nonnull JooqRepository<E, ?, ?> repository, @Nonnull E entity) {
+        write(repository, Kind.INSERT, entity);
+    }
+
+    /**
+     * Buffers the update of an entity.
+     *
+     * @param repository the repository of the entity
+     * @param entity     the entity to update
+     * @param <E>        the type of the entity record
+     */
+    public <E extends Record> void update(@Nonnull JooqRepository<E, ?, ?> repository, @Nonnull E entity) {
+        write(repository, Kind.UPDATE, entity);
+    }
+
+    /**
+     * Buffers the upsert of an entity.
+     *
+     * @param repository the repository of the entity
+     * @param entity     the entity to upsert
+     * @param <E>        the type of the entity record
+     */
+    public <E extends Record> void upsert(@Nonnull JooqRepository<E, ?, ?> repository, @Nonnull E entity) {
+        write(repository, Kind.UPSERT, entity);
+    }
+
+    /**
+     * Buffers the delete of an entity by its ID.
+     *
+     * @param repository the repository of the entity
+     * @param id         the ID of the entity to delete
+     * @param <I>        the type of the entity identifier
+     */
+    public <I> void delete(@Nonnull JooqRepository<?, ?, I> repository, @Nonnull I id) {
+        write(repository, Kind.DELETE, id);
+    }
+
+    /**
+     * Executes the buffered writes.
+     */
+    public void flush() {
+        if (this.writes.isEmpty()) {
+            return;
+        }
+        List<Write> writes = new ArrayList<>(this.writes);
+        this.writes.clear();
+        int start = 0;
+        for (int i = 1; i <= writes.size(); i++) {
+            if (i == writes.size() || !writes.get(i).sameBatch(writes.get(start))) {
+                flush(writes.subList(start, i));
+                start = i;
+            }
+        }
+    }
+
+    /**
+     * Returns the unit of work active on the current thread for the given context.
+     *
+     * @param root the context of a repository
+     * @return the unit of work, or null if the repository does not join a scope
+     */
+    @Nullable
+    static UnitOfWork current(@Nonnull DSLContext root) {
+        UnitOfWork unitOfWork = CURRENT.get();
+        return unitOfWork != null && unitOfWork.root == root ? unitOfWork : null;
+    }
+
+    /**
+     * Returns the context of the transaction of this scope.
+     *
+     * @return the transactional context
+     */
+    @Nonnull
+    DSLContext dsl() {
+        return this.configuration.dsl();
+    }
+
+    /**
+     * Registers an action to run after the transaction is committed or rolled back.
+     *
+     * @param action the action
+     */
+    void afterCompletion(@Nonnull Runnable action) {
+        this.afterCompletion.add(action);
+    }
+
+    private void write(@Nonnull JooqRepository<?, ?, ?> repository, @Nonnull Kind kind, @Nonnull Object item) {
+        if (CURRENT.get() != this) {
+            throw new IllegalStateException("Unit of work is not active on this thread");
+        }
+        this.writes.add(new Write(repository, kind, Objects.requireNonNull(item)));
+    }
+
+    /**
+     * Runs every action after the completion of a transaction, even if some of them fail. The failures are added as
+     * suppressed to the failure of the transaction, or else the first failure is thrown with the others suppressed.
+     */
+    private static void runAll(@Nonnull List<Runnable> actions, @Nullable Throwable failure) {
+        Throwable first = failure;
+        for (Runnable action : actions) {
+            try {
+                action.run();
+            } catch (RuntimeException | Error e) {
+                if (first == null) {
+                    first = e;
+                } else {
+                    first.addSuppressed(e);
+                }
+            }
+        }
+        if (failure == null && first instanceof RuntimeException e) {
+            throw e;
+        } else if (failure == null && first instanceof Error e) {
+            throw e;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Record, I> void flush(@Nonnull List<Write> batch) {
+        JooqRepository<E, ?, I> repository = (JooqRepository<E, ?, I>) batch.getFirst().repository();
+        List<?> items = batch.stream().map(Write::item).toList();
+        switch (batch.getFirst().kind()) {
+            case INSERT -> repository.insertAll((List<E>) items);
+            case UPDATE -> repository.updateAll((List<E>) items);
+            case UPSERT -> repository.upsertAll((List<E>) items);
+            case DELETE -> repository.deleteAll((List<I>) items);
+        }
+    }
+
+    private enum Kind {
+        INSERT, UPDATE, UPSERT, DELETE
+    }
+
+    private record Write(JooqRepository<?, ?, ?> repository, Kind kind, Object item) {
+
+        boolean sameBatch(@Nonnull Write other) {
+            return this.repository == other.repository && this.kind == other.kind;
+        }
+    }
+}
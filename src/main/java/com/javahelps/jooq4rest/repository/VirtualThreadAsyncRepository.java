@@ -0,0 +1,232 @@
+package com.javahelps.jooq4rest.repository;
+
+import com.javahelps.jooq4rest.condition.ShapedCondition;
+import com.javahelps.jooq4rest.page.CursorPage;
+import com.javahelps.jooq4rest.page.Page;
+import com.javahelps.jooq4rest.page.Slice;
+import jakarta.annotation.Nonnull;
+import jakarta.annotation.Nullable;
+import org.jooq.Condition;
+import org.jooq.OrderField;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * An {@link AsyncRepository} running the operations of a blocking {@link Repository} on virtual threads.
+ * <p>
+ * Virtual threads are cheap enough to start one per operation, but each running operation holds a database
+ * connection. The number of operations running at the same time is therefore limited by a semaphore, which should not
+ * exceed the size of the connection pool. The other operations wait for a permit on their virtual threads without
+ * blocking the caller.
+ * <p>
+ * Transactions are handled by the blocking repository, so each operation runs with the {@link TransactionMode} of
+ * the {@link JooqRepository} it delegates to.
+ *
+ * <p>Example usage:</p>
+ * <pre>
+ * {@code
+ * AsyncRepository<Person, Person, Long> repository = new VirtualThreadAsyncRepository<>(new PersonRepository(context), 10);
+ * repository.findById(1L).thenAccept(person -> ...);
+ * }
+ * </pre>
+ *
+ * @param <E> the type of the entity record
+ * @param <P> the type of the projection record
+ * @param <I> the type of the entity identifier
+ */
+public class VirtualThreadAsyncRepository<E extends Record, P extends Record, I> implements AsyncRepository<E, P, I> {
+
+    private static final ThreadFactory VIRTUAL_THREADS = Thread.ofVirtual().name("jooq4rest-async-", 0).factory();
+
+    private final Repository<E, P, I> repository;
+    private final Semaphore permits;
+    private final Executor executor;
+
+    /**
+     * Constructs a VirtualThreadAsyncRepository running up to the given number of operations at the same time.
+     *
+     * @param repository     the blocking repository
+     * @param maxConcurrency the maximum number of operations running at the same time, usually the size of the
+     *                       connection pool
+     */
+    public VirtualThreadAsyncRepository(@Nonnull Repository<E, P, I> repository, int maxConcurrency) {
+        this(repository, maxConcurrency, command -> VIRTUAL_THREADS.newThread(command).start());
+    }
+
+    /**
+     * Constructs a VirtualThreadAsyncRepository running the operations on the given executor.
+     *
+     * @param repository     the blocking repository
+     * @param maxConcurrency the maximum number of operations running at the same time, usually the size of the
+     *                       connection pool
+     * @param executor       the executor running the operations
+     */
+    public VirtualThreadAsyncRepository(@Nonnull Repository<E, P, I> repository, int maxConcurrency, @Nonnull Executor executor) {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("Max concurrency must be positive: " + maxConcurrency);
+        }
+        this.repository = Objects.requireNonNull(repository);
+        // A fair semaphore prevents starving operations waiting under sustained load
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Boolean> exists(@Nonnull I id) {
+        return supply(() -> this.repository.exists(id));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Long> count() {
+        return supply(this.repository::count);
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Optional<E>> findById(@Nonnull I id) {
+        return supply(() -> this.repository.findById(id));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Map<I, E>> findAllById(@Nonnull Collection<I> ids) {
+        return supply(() -> this.repository.findAllById(ids));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<List<E>> findAll() {
+        return supply(this.repository::findAll);
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Void> streamAll(@Nonnull Consumer<? super E> action) {
+        return supply(() -> {
+            try (Stream<E> stream = this.repository.streamAll()) {
+                stream.forEach(action);
+            }
+            return null;
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<I> insert(@Nonnull E entity) {
+        return supply(() -> this.repository.insert(entity));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Integer> update(@Nonnull E entity) {
+        return supply(() -> this.repository.update(entity));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Integer> delete(@Nonnull I id) {
+        return supply(() -> this.repository.delete(id));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Integer> upsert(@Nonnull E entity) {
+        return supply(() -> this.repository.upsert(entity));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Integer> upsertAll(@Nonnull Collection<E> entities) {
+        return supply(() -> this.repository.upsertAll(entities));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<List<I>> insertAll(@Nonnull Collection<E> entities) {
+        return supply(() -> this.repository.insertAll(entities));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Integer> updateAll(@Nonnull Collection<E> entities) {
+        return supply(() -> this.repository.updateAll(entities));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Integer> deleteAll(@Nonnull Collection<I> ids) {
+        return supply(() -> this.repository.deleteAll(ids));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Page<P>> query(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        return supply(() -> this.repository.query(condition, order, pageNumber, pageSize));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Page<P>> query(@Nonnull ShapedCondition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        return supply(() -> this.repository.query(condition, order, pageNumber, pageSize));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Void> stream(@Nonnull Condition condition, @Nonnull OrderField<?> order, @Nonnull Consumer<? super P> action) {
+        return supply(() -> {
+            try (Stream<P> stream = this.repository.stream(condition, order)) {
+                stream.forEach(action);
+            }
+            return null;
+        });
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<Slice<P>> slice(@Nonnull Condition condition, @Nonnull OrderField<?> order, int pageNumber, int pageSize) {
+        return supply(() -> this.repository.slice(condition, order, pageNumber, pageSize));
+    }
+
+    @Nonnull
+    @Override
+    public CompletionStage<CursorPage<P>> seek(@Nonnull Condition condition, @Nonnull OrderField<?> order, @Nullable String cursor, int pageSize) {
+        return supply(() -> this.repository.seek(condition, order, cursor, pageSize));
+    }
+
+    /**
+     * Returns the number of operations that can start without waiting for a permit.
+     *
+     * @return the number of available permits
+     */
+    public int availablePermits() {
+        return this.permits.availablePermits();
+    }
+
+    @Nonnull
+    private <T> CompletableFuture<T> supply(@Nonnull Supplier<T> operation) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                this.permits.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            try {
+                return operation.get();
+            } finally {
+                this.permits.release();
+            }
+        }, this.executor);
+    }
+}
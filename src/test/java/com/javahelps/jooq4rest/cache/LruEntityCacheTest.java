@@ -0,0 +1,148 @@
+package com.javahelps.jooq4rest.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LruEntityCacheTest {
+
+    @Test
+    void testLruEviction() {
+        LruEntityCache<Integer, String> cache = new LruEntityCache<>(2, Duration.ofMinutes(1));
+        assertEquals("1", cache.get(1, String::valueOf));
+        assertEquals("2", cache.get(2, String::valueOf));
+        assertEquals("1", cache.get(1, id -> fail("1 should be cached")));
+        assertEquals("3", cache.get(3, String::valueOf));
+
+        assertNull(cache.getIfPresent(2));
+        assertEquals("1", cache.getIfPresent(1));
+        assertEquals("3", cache.getIfPresent(3));
+        assertEquals(new CacheStats(3, 4, 1), cache.stats());
+        assertEquals(0.5, new CacheStats(2, 2, 0).hitRate());
+    }
+
+    @Test
+    void testTimeToLive() {
+        AtomicLong now = new AtomicLong();
+        LruEntityCache<Integer, String> cache = new LruEntityCache<>(10, Duration.ofSeconds(10), now::get);
+        cache.get(1, String::valueOf);
+
+        now.set(Duration.ofSeconds(9).toNanos());
+        assertEquals("1", cache.getIfPresent(1));
+        now.set(Duration.ofSeconds(10).toNanos());
+        assertNull(cache.getIfPresent(1));
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.stats().evictions());
+    }
+
+    @Test
+    void testMissingEntitiesAreNotCached() {
+        LruEntityCache<Integer, String> cache = new LruEntityCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        assertNull(cache.get(1, id -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertEquals("1", cache.get(1, id -> {
+            loads.incrementAndGet();
+            return "1";
+        }));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testConcurrentMissesShareLoad() throws Exception {
+        LruEntityCache<Integer, String> cache = new LruEntityCache<>(10, Duration.ofMinutes(1));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            Future<String> first = executor.submit(() -> cache.get(1, id -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return "1";
+            }));
+            loading.await();
+            Future<?>[] others = new Future<?>[7];
+            for (int i = 0; i < others.length; i++) {
+                others[i] = executor.submit(() -> cache.get(1, id -> {
+                    loads.incrementAndGet();
+                    return "other";
+                }));
+            }
+            release.countDown();
+            assertEquals("1", first.get());
+            for (Future<?> other : others) {
+                assertEquals("1", other.get());
+            }
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void testFailedLoadPropagates() {
+        LruEntityCache<Integer, String> cache = new LruEntityCache<>(10, Duration.ofMinutes(1));
+        assertThrows(IllegalStateException.class, () -> cache.get(1, id -> {
+            throw new IllegalStateException("Database is down");
+        }));
+        assertEquals("1", cache.get(1, String::valueOf));
+    }
+
+    @Test
+    void testPeekDoesNotRecordStats() {
+        LruEntityCache<Integer, String> cache = new LruEntityCache<>(10, Duration.ofMinutes(1));
+        cache.get(1, String::valueOf);
+        assertEquals("1", cache.peek(1));
+        assertNull(cache.peek(2));
+        assertEquals(new CacheStats(0, 1, 0), cache.stats());
+    }
+
+    @Test
+    void testConcurrentHitsAndEvictions() throws Exception {
+        LruEntityCache<Integer, String> cache = new LruEntityCache<>(64, Duration.ofMinutes(1));
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                int offset = thread;
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) {
+                        int id = (i * 7 + offset) % 256;
+                        assertEquals(String.valueOf(id), cache.get(id, String::valueOf));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        assertTrue(cache.size() <= 64, "size: " + cache.size());
+        CacheStats stats = cache.stats();
+        assertEquals(80_000, stats.hits() + stats.misses());
+    }
+
+    @Test
+    void testInvalidationDuringLoad() {
+        LruEntityCache<Integer, String> cache = new LruEntityCache<>(10, Duration.ofMinutes(1));
+        assertEquals("stale", cache.get(1, id -> {
+            cache.invalidate(id);
+            return "stale";
+        }));
+        assertNull(cache.getIfPresent(1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
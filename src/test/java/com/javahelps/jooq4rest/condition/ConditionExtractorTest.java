@@ -1,15 +1,26 @@
 package com.javahelps.jooq4rest.condition;
 
+import com.javahelps.jooq4rest.annotation.GreaterThanOrEqual;
+import com.javahelps.jooq4rest.annotation.In;
 import org.jooq.*;
 import org.jooq.impl.DSL;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SuppressWarnings("SqlNoDataSourceInspection")
 class ConditionExtractorTest {
@@ -45,4 +56,67 @@ class ConditionExtractorTest {
             assertEquals("John", result.getFirst().value1());
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void testExtractIn() throws SQLException {
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:ConditionExtractorInTest", "test", "");
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (name VARCHAR(255), age INT, country VARCHAR(255))");
+            statement.execute("INSERT INTO person VALUES ('John', 25, 'USA')");
+            statement.execute("INSERT INTO person VALUES ('Jane', 30, 'UK')");
+            statement.execute("INSERT INTO person VALUES ('Alice', 35, 'LK')");
+
+            DSLContext context = DSL.using(connection, org.jooq.SQLDialect.H2);
+
+            Table<Record3<String, Integer, String>> table = context.select(DSL.field("name", String.class),
+                            DSL.field("age", Integer.class),
+                            DSL.field("country", String.class))
+                    .from(DSL.table("person"))
+                    .asTable("table");
+
+            ConditionExtractor<Record3<String, Integer, String>, CountryParam> extractor = new ConditionExtractor<>(table, CountryParam.class);
+
+            assertEquals(3, context.fetchCount(table, extractor.extract(new CountryParam(null, List.of()))));
+            assertEquals(2, context.fetchCount(table, extractor.extract(new CountryParam(null, List.of("USA", "UK")))));
+            assertEquals(1, context.fetchCount(table, extractor.extract(new CountryParam(30, List.of("USA", "UK")))));
+        }
+    }
+
+    @Test
+    void testUnknownColumn() {
+        Table<Record1<String>> table = DSL.select(DSL.field("name", String.class)).asTable("table");
+        assertThrows(IllegalArgumentException.class, () -> new ConditionExtractor<>(table, QueryParam.class));
+    }
+
+    @Test
+    void testFlightRecorderEvent() throws IOException {
+        Table<Record3<String, Integer, String>> table = DSL.select(DSL.field("name", String.class),
+                        DSL.field("age", Integer.class),
+                        DSL.field("country", String.class))
+                .asTable("table");
+        ConditionExtractor<Record3<String, Integer, String>, CountryParam> extractor = new ConditionExtractor<>(table, CountryParam.class);
+
+        Path file = Files.createTempFile("jooq4rest", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.javahelps.jooq4rest.ConditionExtraction").withoutThreshold();
+            recording.start();
+            extractor.extractShaped(new CountryParam(null, List.of("USA", "UK")));
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            assertEquals(1, events.size());
+            RecordedEvent event = events.getFirst();
+            assertEquals(CountryParam.class.getName(), event.getClass("type").getName());
+            assertEquals(0b10, event.getLong("activeFields"));
+            assertEquals(1, event.getInt("activeFieldCount"));
+            assertTrue(event.getBoolean("shaped"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    record CountryParam(@GreaterThanOrEqual("age") Integer age,
+                        @In("country") List<String> countries) {
+    }
+}
@@ -0,0 +1,64 @@
+package com.javahelps.jooq4rest.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testBuckets() {
+        long previous = -1;
+        for (int index = 0; index < (Long.SIZE - 5) * 32; index++) {
+            long highest = LatencyHistogram.highestEquivalentValue(index);
+            assertEquals(index, LatencyHistogram.index(previous + 1));
+            assertEquals(index, LatencyHistogram.index(highest));
+            assertTrue(highest - previous <= Math.max(1, (previous + 1) / 32), "Bucket " + index + " is too wide");
+            previous = highest;
+        }
+        assertEquals(Long.MAX_VALUE, previous);
+    }
+
+    @Test
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 10_000; value++) {
+            histogram.record(value * 1000);
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(5_000_500, snapshot.mean());
+        assertEquals(10_000_000, snapshot.max());
+        assertEquals(5_000_000, snapshot.p50(), 5_000_000 / 32.0);
+        assertEquals(9_000_000, snapshot.p90(), 9_000_000 / 32.0);
+        assertEquals(9_900_000, snapshot.p99(), 9_900_000 / 32.0);
+        assertEquals(9_990_000, snapshot.p999(), 9_990_000 / 32.0);
+        assertTrue(snapshot.p50() >= 5_000_000);
+    }
+
+    @Test
+    void testEmpty() {
+        assertEquals(new HistogramSnapshot(0, 0, 0, 0, 0, 0, 0), new LatencyHistogram().snapshot());
+    }
+
+    @Test
+    void testConcurrentRecording() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int thread = 0; thread < 4; thread++) {
+                executor.submit(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        histogram.record(i % 100);
+                    }
+                });
+            }
+        }
+        HistogramSnapshot snapshot = histogram.snapshot();
+        assertEquals(400_000, snapshot.count());
+        assertEquals(99, snapshot.max());
+        assertEquals(49, snapshot.p50());
+    }
+}
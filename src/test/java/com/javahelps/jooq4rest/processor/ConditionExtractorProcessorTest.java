@@ -0,0 +1,123 @@
+package com.javahelps.jooq4rest.processor;
+
+import com.javahelps.jooq4rest.condition.ConditionExtractor;
+import org.jooq.*;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.*;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionExtractorProcessorTest {
+
+    private static final String QUERY_PARAM = """
+            package com.example;
+
+            import com.javahelps.jooq4rest.annotation.*;
+            import java.util.List;
+
+            public record QueryParam(@Equal("name") String name,
+                                     @GreaterThanOrEqual("age") Integer age,
+                                     @LikeIgnoreCase("country") String country,
+                                     @In("role") List<String> roles) {
+            }
+            """;
+
+    private static final String INVALID_QUERY_PARAM = """
+            package com.example;
+
+            import com.javahelps.jooq4rest.annotation.*;
+
+            public class InvalidQueryParam {
+                @LikeIgnoreCase("age")
+                Integer age;
+            }
+            """;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testGenerate() throws Exception {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile("QueryParam", QUERY_PARAM);
+        assertTrue(diagnostics.getDiagnostics().stream().noneMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR),
+                diagnostics.getDiagnostics().toString());
+        assertTrue(Files.exists(this.directory.resolve("generated/com/example/QueryParamConditionExtractor.java")));
+
+        Table<Record4<String, Integer, String, String>> table = DSL.select(DSL.field("name", String.class),
+                        DSL.field("age", Integer.class),
+                        DSL.field("country", String.class),
+                        DSL.field("role", String.class))
+                .from(DSL.table("person"))
+                .asTable("table");
+
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[]{this.directory.resolve("classes").toUri().toURL()}, getClass().getClassLoader())) {
+            Class<?> queryParamClass = classLoader.loadClass("com.example.QueryParam");
+            Class<?> extractorClass = classLoader.loadClass("com.example.QueryParamConditionExtractor");
+            Object queryParam = queryParamClass.getConstructors()[0].newInstance("John", 25, null, List.of("admin", "user"));
+            Object extractor = extractorClass.getConstructor(Table.class).newInstance(table);
+            Condition generated = (Condition) extractorClass.getMethod("extract", queryParamClass).invoke(extractor, queryParam);
+            Condition reflective = reflectiveExtract(table, queryParamClass, queryParam);
+
+            DSLContext context = DSL.using(SQLDialect.H2);
+            assertEquals(context.renderInlined(reflective), context.renderInlined(generated));
+        }
+    }
+
+    @Test
+    void testUnsupportedType() throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile("InvalidQueryParam", INVALID_QUERY_PARAM);
+        assertTrue(diagnostics.getDiagnostics().stream().noneMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR),
+                diagnostics.getDiagnostics().toString());
+        assertTrue(diagnostics.getDiagnostics().stream()
+                .anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.WARNING
+                        && diagnostic.getMessage(Locale.ROOT).contains("com.example.InvalidQueryParam#age has an unsupported type of java.lang.Integer")));
+        assertFalse(Files.exists(this.directory.resolve("generated/com/example/InvalidQueryParamConditionExtractor.java")));
+        assertTrue(Files.exists(this.directory.resolve("classes/com/example/InvalidQueryParam.class")));
+    }
+
+    @Test
+    void testUnsupportedTypeInStrictMode() throws IOException {
+        DiagnosticCollector<JavaFileObject> diagnostics = compile("InvalidQueryParam", INVALID_QUERY_PARAM, "-Ajooq4rest.strict=true");
+        assertTrue(diagnostics.getDiagnostics().stream()
+                .anyMatch(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR
+                        && diagnostic.getMessage(Locale.ROOT).contains("com.example.InvalidQueryParam#age has an unsupported type of java.lang.Integer")));
+        assertFalse(Files.exists(this.directory.resolve("generated/com/example/InvalidQueryParamConditionExtractor.java")));
+    }
+
+    private DiagnosticCollector<JavaFileObject> compile(String className, String source, String... extraOptions) throws IOException {
+        Path sources = Files.createDirectories(this.directory.resolve("sources/com/example"));
+        Path sourceFile = Files.writeString(sources.resolve(className + ".java"), source);
+        Files.createDirectories(this.directory.resolve("classes"));
+        Files.createDirectories(this.directory.resolve("generated"));
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, Locale.ROOT, null)) {
+            List<String> options = new ArrayList<>(List.of("-classpath", System.getProperty("java.class.path"),
+                    "-d", this.directory.resolve("classes").toString(),
+                    "-s", this.directory.resolve("generated").toString()));
+            options.addAll(List.of(extraOptions));
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null,
+                    fileManager.getJavaFileObjects(sourceFile));
+            task.setProcessors(List.of(new ConditionExtractorProcessor()));
+            task.call();
+        }
+        return diagnostics;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Condition reflectiveExtract(Table<?> table, Class<?> clazz, Object object) {
+        return new ConditionExtractor(table, clazz).extract(object);
+    }
+}
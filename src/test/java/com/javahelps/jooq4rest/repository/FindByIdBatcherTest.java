@@ -0,0 +1,170 @@
+package com.javahelps.jooq4rest.repository;
+
+import com.javahelps.jooq4rest.metrics.InMemoryRepositoryMetrics;
+import com.javahelps.jooq4rest.metrics.RepositoryMetrics;
+import com.javahelps.jooq4rest.metrics.RepositoryOperation;
+import com.javahelps.jooq4rest.repository.dto.Person;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FindByIdBatcherTest {
+
+    private static DSLContext context;
+
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:FindByIdBatcherTest;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
+        context = DSL.using(connection, SQLDialect.H2);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+            for (int i = 1; i <= 10; i++) {
+                statement.execute("INSERT INTO person (name, country) VALUES ('Person " + i + "', 'USA')");
+            }
+        }
+    }
+
+    @Test
+    void testConcurrentLookups() throws Exception {
+        InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+        PersonRepository repository = new PersonRepository(context) {
+            @Override
+            protected RepositoryMetrics metrics() {
+                return metrics;
+            }
+        };
+
+        List<CompletableFuture<Optional<Person>>> futures = new ArrayList<>();
+        try (FindByIdBatcher<Person, Long> batcher = new FindByIdBatcher<>(repository, Duration.ofMillis(50), 1000);
+             ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<CompletableFuture<Optional<Person>>>> requests = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                long id = i % 12 + 1;
+                requests.add(CompletableFuture.supplyAsync(() -> batcher.findById(id), executor));
+            }
+            for (CompletableFuture<CompletableFuture<Optional<Person>>> request : requests) {
+                futures.add(request.get());
+            }
+            for (int i = 0; i < futures.size(); i++) {
+                long id = i % 12 + 1;
+                Optional<Person> person = futures.get(i).get(5, TimeUnit.SECONDS);
+                if (id <= 10) {
+                    assertEquals(Optional.of(new Person((int) id, "Person " + id, "USA")), person);
+                } else {
+                    assertEquals(Optional.empty(), person);
+                }
+            }
+
+            assertEquals(100, batcher.requests());
+            assertTrue(batcher.batches() < 10, "Expected a few batches but got " + batcher.batches());
+            assertEquals(batcher.batches(), Objects.requireNonNull(metrics.snapshot("person", RepositoryOperation.FIND_ALL_BY_ID)).latency().count());
+            assertNull(metrics.snapshot("person", RepositoryOperation.FIND_BY_ID));
+        }
+    }
+
+    @Test
+    void testMaxBatchSize() throws Exception {
+        try (FindByIdBatcher<Person, Long> batcher = new FindByIdBatcher<>(new PersonRepository(context), Duration.ofHours(1), 3)) {
+            CompletableFuture<Optional<Person>> first = batcher.findById(1L);
+            CompletableFuture<Optional<Person>> duplicate = batcher.findById(1L);
+            CompletableFuture<Optional<Person>> second = batcher.findById(2L);
+            assertFalse(first.isDone());
+
+            CompletableFuture<Optional<Person>> third = batcher.findById(3L);
+            // The full batch is queried without waiting for the window
+            assertEquals(Optional.of(new Person(3, "Person 3", "USA")), third.get(5, TimeUnit.SECONDS));
+            assertEquals(first.get(5, TimeUnit.SECONDS), duplicate.get(5, TimeUnit.SECONDS));
+            assertEquals(Optional.of(new Person(2, "Person 2", "USA")), second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, batcher.batches());
+
+            CompletableFuture<Optional<Person>> pending = batcher.findById(4L);
+            batcher.close();
+            assertEquals(Optional.of(new Person(4, "Person 4", "USA")), pending.get(5, TimeUnit.SECONDS));
+            assertThrows(IllegalStateException.class, () -> batcher.findById(5L));
+        }
+    }
+
+    @Test
+    void testFullBatchIsNotQueriedByCaller() throws Exception {
+        Thread caller = Thread.currentThread();
+        CompletableFuture<Thread> loader = new CompletableFuture<>();
+        PersonRepository repository = new PersonRepository(context) {
+            @Override
+            protected Map<Long, Person> doFindAllById(DSLContext context, Collection<Long> ids) {
+                loader.complete(Thread.currentThread());
+                return super.doFindAllById(context, ids);
+            }
+        };
+        try (ExecutorService executor = Executors.newSingleThreadExecutor();
+             FindByIdBatcher<Person, Long> batcher = new FindByIdBatcher<>(repository, Duration.ofHours(1), 1, executor)) {
+            assertEquals(Optional.of(new Person(1, "Person 1", "USA")), batcher.findById(1L).get(5, TimeUnit.SECONDS));
+            assertNotSame(caller, loader.get());
+        }
+    }
+
+    @Test
+    void testSlowBatchDoesNotDelayNextBatch() throws Exception {
+        CountDownLatch slowBatchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        PersonRepository repository = new PersonRepository(context) {
+            @Override
+            protected Map<Long, Person> doFindAllById(DSLContext context, Collection<Long> ids) {
+                if (ids.contains(1L)) {
+                    slowBatchStarted.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return super.doFindAllById(context, ids);
+            }
+        };
+        try (FindByIdBatcher<Person, Long> batcher = new FindByIdBatcher<>(repository, Duration.ofMillis(10), 100)) {
+            CompletableFuture<Optional<Person>> slow = batcher.findById(1L);
+            assertTrue(slowBatchStarted.await(5, TimeUnit.SECONDS));
+
+            assertEquals(Optional.of(new Person(2, "Person 2", "USA")), batcher.findById(2L).get(5, TimeUnit.SECONDS));
+            assertFalse(slow.isDone());
+
+            release.countDown();
+            assertEquals(Optional.of(new Person(1, "Person 1", "USA")), slow.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testFailure() {
+        DSLContext missingTable = DSL.using(SQLDialect.H2);
+        try (FindByIdBatcher<Person, Long> batcher = new FindByIdBatcher<>(new PersonRepository(missingTable), Duration.ofMillis(10), 100)) {
+            CompletableFuture<Optional<Person>> first = batcher.findById(1L);
+            CompletableFuture<Optional<Person>> second = batcher.findById(2L);
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(DataAccessException.class, exception.getCause());
+            assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -1,32 +1,70 @@
 package com.javahelps.jooq4rest.repository;
 
+import com.javahelps.jooq4rest.annotation.Equal;
+import com.javahelps.jooq4rest.cache.CacheStats;
+import com.javahelps.jooq4rest.cache.EntityCache;
+import com.javahelps.jooq4rest.cache.LruEntityCache;
+import com.javahelps.jooq4rest.annotation.LikeIgnoreCase;
+import com.javahelps.jooq4rest.condition.ConditionExtractor;
+import com.javahelps.jooq4rest.metrics.InMemoryRepositoryMetrics;
+import com.javahelps.jooq4rest.metrics.RepositoryMetrics;
+import com.javahelps.jooq4rest.metrics.RepositoryOperation;
+import com.javahelps.jooq4rest.page.CursorPage;
 import com.javahelps.jooq4rest.page.Page;
+import com.javahelps.jooq4rest.page.Slice;
 import com.javahelps.jooq4rest.repository.dto.Person;
+import com.javahelps.jooq4rest.repository.jooq.PersonRecord;
+import org.h2.jdbcx.JdbcConnectionPool;
 import org.jooq.Condition;
+import org.jooq.ConnectionProvider;
 import org.jooq.DSLContext;
 import org.jooq.OrderField;
 import org.jooq.SQLDialect;
+import org.jooq.SelectSelectStep;
+import org.jooq.SortField;
+import org.jooq.exception.DataAccessException;
 import org.jooq.impl.DSL;
+import org.jooq.tools.jdbc.MockConnection;
+import org.jooq.tools.jdbc.MockResult;
 import org.junit.jupiter.api.*;
 
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
+import static com.javahelps.jooq4rest.repository.jooq.Person.PERSON;
 import static org.junit.jupiter.api.Assertions.*;
 
 @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
 class JooqRepositoryTest {
 
+    private static DSLContext context;
     private static JooqRepository<Person, Person, Long> repository;
 
     @BeforeAll
     public static void setUp() throws SQLException {
         Connection connection = DriverManager.getConnection("jdbc:h2:mem:JooqRepositoryTest;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
-        DSLContext context = DSL.using(connection, SQLDialect.H2);
+        context = DSL.using(connection, SQLDialect.H2);
         repository = new PersonRepository(context);
         try (Statement statement = connection.createStatement()) {
             statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
@@ -98,4 +136,755 @@ class JooqRepositoryTest {
         assertTrue(repository.exists(2L));
         assertFalse(repository.exists(1L));
     }
+
+    @Test
+    @Order(9)
+    void testSeek() {
+        Condition condition = DSL.trueCondition();
+        OrderField<?> order = DSL.field("name").asc();
+        CursorPage<Person> first = repository.seek(condition, order, null, 1);
+        assertEquals(List.of(new Person(3, "Alice", "USA")), first.content());
+        assertFalse(first.hasPrevious());
+        assertTrue(first.hasNext());
+
+        CursorPage<Person> second = repository.seek(condition, order, first.nextCursor(), 1);
+        assertEquals(List.of(new Person(2, "Jane", "UK")), second.content());
+        assertTrue(second.hasPrevious());
+        assertFalse(second.hasNext());
+
+        CursorPage<Person> previous = repository.seek(condition, order, second.previousCursor(), 1);
+        assertEquals(first.content(), previous.content());
+        assertFalse(previous.hasPrevious());
+        assertTrue(previous.hasNext());
+    }
+
+    @Test
+    @Order(9)
+    void testSeekEmptyPage() {
+        Condition condition = DSL.trueCondition();
+        SortField<?> order = DSL.field("name").asc();
+        int orderHash = KeysetCursor.order(order);
+        // Cursors beyond the first and the last rows, as held by a client when the rows are deleted
+        CursorPage<Person> before = repository.seek(condition, order, new KeysetCursor(orderHash, true, List.of("Alice", 3L)).encode(), 1);
+        assertTrue(before.content().isEmpty());
+        assertFalse(before.hasPrevious());
+        assertEquals(List.of(new Person(2, "Jane", "UK")), repository.seek(condition, order, before.nextCursor(), 1).content());
+
+        CursorPage<Person> after = repository.seek(condition, order, new KeysetCursor(orderHash, false, List.of("Jane", 2L)).encode(), 1);
+        assertTrue(after.content().isEmpty());
+        assertFalse(after.hasNext());
+        assertEquals(List.of(new Person(3, "Alice", "USA")), repository.seek(condition, order, after.previousCursor(), 1).content());
+    }
+
+    @Test
+    @Order(9)
+    void testSeekInvalidCursor() {
+        Condition condition = DSL.trueCondition();
+        SortField<?> order = DSL.field("name").asc();
+        String cursor = repository.seek(condition, order, null, 1).nextCursor();
+
+        // A cursor of another order would select the wrong rows
+        assertThrows(IllegalArgumentException.class, () -> repository.seek(condition, DSL.field("name").desc(), cursor, 1));
+        assertThrows(IllegalArgumentException.class, () -> repository.seek(condition, DSL.field("country").asc(), cursor, 1));
+        assertThrows(IllegalArgumentException.class, () -> repository.seek(condition, order,
+                new KeysetCursor(KeysetCursor.order(order), false, List.of("Jane", "two")).encode(), 1));
+        assertThrows(IllegalArgumentException.class, () -> repository.seek(condition, order, "not a cursor", 1));
+    }
+
+    @Test
+    @Order(9)
+    void testSeekNullSortKeys() throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:JooqRepositoryTestSeek;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
+        try (connection; Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+            statement.execute("INSERT INTO person (name, country) VALUES ('John', NULL), ('Jane', 'UK'), ('Alice', NULL), ('Bob', 'LK'), ('Eve', 'UK')");
+            JooqRepository<Person, Person, Long> seekRepository = new PersonRepository(DSL.using(connection, SQLDialect.H2));
+
+            // NULL values are sorted last in ascending order and first in descending order by default
+            Map<OrderField<?>, OrderField<?>> orders = Map.of(PERSON.COUNTRY.asc(), PERSON.COUNTRY.asc().nullsLast(),
+                    PERSON.COUNTRY.desc(), PERSON.COUNTRY.desc().nullsFirst(),
+                    PERSON.COUNTRY.asc().nullsFirst(), PERSON.COUNTRY.asc().nullsFirst(),
+                    PERSON.COUNTRY.desc().nullsLast(), PERSON.COUNTRY.desc().nullsLast());
+            for (OrderField<?> order : orders.keySet()) {
+                List<Person> expected = seekRepository.query(DSL.noCondition(), orders.get(order), 0, 10).content();
+                List<Person> forward = new ArrayList<>();
+                CursorPage<Person> page = seekRepository.seek(DSL.noCondition(), order, null, 2);
+                forward.addAll(page.content());
+                while (page.hasNext()) {
+                    page = seekRepository.seek(DSL.noCondition(), order, page.nextCursor(), 2);
+                    forward.addAll(page.content());
+                }
+                assertEquals(5, forward.size(), order.toString());
+                assertEquals(5, forward.stream().map(Person::id).distinct().count(), order.toString());
+
+                List<Person> backward = new ArrayList<>(page.content());
+                while (page.hasPrevious()) {
+                    page = seekRepository.seek(DSL.noCondition(), order, page.previousCursor(), 2);
+                    backward.addAll(0, page.content());
+                }
+                assertEquals(forward, backward, order.toString());
+                assertEquals(expected.stream().map(Person::country).toList(), forward.stream().map(Person::country).toList(), order.toString());
+            }
+        }
+    }
+
+    @Test
+    @Order(10)
+    void testQueryWithWindowCount() {
+        JooqRepository<Person, Person, Long> windowRepository = new PersonRepository(context) {
+            @Override
+            protected CountStrategy countStrategy() {
+                return CountStrategy.WINDOW_FUNCTION;
+            }
+        };
+        Condition condition = DSL.trueCondition();
+        OrderField<?> order = DSL.field("name").asc();
+        Page<Person> page = windowRepository.query(condition, order, 0, 1);
+        assertEquals(new Page<>(List.of(new Person(3, "Alice", "USA")), 0, 1, 2, 2), page);
+
+        Page<Person> outOfRange = windowRepository.query(condition, order, 5, 1);
+        assertEquals(new Page<>(List.of(), 5, 1, 2, 2), outOfRange);
+    }
+
+    @Test
+    @Order(11)
+    void testSlice() {
+        Condition condition = DSL.trueCondition();
+        OrderField<?> order = DSL.field("name").asc();
+        Slice<Person> first = repository.slice(condition, order, 0, 1);
+        assertEquals(new Slice<>(List.of(new Person(3, "Alice", "USA")), 0, 1, true), first);
+        assertFalse(first.hasPrevious());
+
+        Slice<Person> second = repository.slice(condition, order, 1, 1);
+        assertEquals(new Slice<>(List.of(new Person(2, "Jane", "UK")), 1, 1, false), second);
+        assertTrue(second.hasPrevious());
+    }
+
+    @Test
+    @Order(12)
+    void testStream() {
+        try (Stream<Person> people = repository.streamAll()) {
+            assertEquals(List.of(new Person(2, "Jane", "UK"), new Person(3, "Alice", "USA")), people.toList());
+        }
+        try (Stream<Person> people = repository.stream(DSL.field("country").eq("USA"), DSL.field("name").asc())) {
+            assertEquals(List.of(new Person(3, "Alice", "USA")), people.toList());
+        }
+    }
+
+    @Test
+    @Order(13)
+    void testStreamInTransaction() {
+        JooqRepository<Person, Person, Long> transactionalRepository = new PersonRepository(context, TransactionMode.READ_WRITE);
+        try (Stream<Person> people = transactionalRepository.stream(DSL.trueCondition(), DSL.field("name").desc())) {
+            assertEquals(List.of(new Person(2, "Jane", "UK"), new Person(3, "Alice", "USA")), people.toList());
+        }
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    @Order(14)
+    void testBatchWrites() {
+        JooqRepository<Person, Person, Long> batchRepository = new PersonRepository(context) {
+            @Override
+            protected int batchSize() {
+                return 2;
+            }
+        };
+        List<Long> ids = batchRepository.insertAll(List.of(new Person(null, "Bob", "UK"),
+                new Person(null, "Carol", "USA"),
+                new Person(null, "Dave", "UK")));
+        assertEquals(List.of(4L, 5L, 6L), ids);
+
+        int updatedRows = batchRepository.updateAll(List.of(new Person(4, "Bob Updated", "UK"),
+                new Person(5, "Carol Updated", "USA"),
+                new Person(6, "Dave Updated", "UK")));
+        assertEquals(3, updatedRows);
+        assertEquals(Optional.of(new Person(5, "Carol Updated", "USA")), repository.findById(5L));
+
+        int deletedRows = batchRepository.deleteAll(ids);
+        assertEquals(3, deletedRows);
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    @Order(15)
+    void testUpsert() {
+        assertEquals(1, repository.upsert(new Person(2, "Jane Upserted", "UK")));
+        assertEquals(Optional.of(new Person(2, "Jane Upserted", "UK")), repository.findById(2L));
+
+        assertEquals(2, repository.upsertAll(List.of(new Person(3, "Alice Upserted", "USA"), new Person(10, "Eve", "UK"))));
+        assertEquals(List.of(new Person(2, "Jane Upserted", "UK"), new Person(3, "Alice Upserted", "USA"), new Person(10, "Eve", "UK")),
+                repository.findAll());
+
+        assertEquals(1, repository.delete(10L));
+        assertEquals(2, repository.updateAll(List.of(new Person(2, "Jane", "UK"), new Person(3, "Alice", "USA"))));
+    }
+
+    @Test
+    @Order(15)
+    void testUpdateAllWithoutRowCounts() {
+        // A driver rewriting the batch reports no count per statement
+        DSLContext mockContext = DSL.using(new MockConnection(execute -> {
+            MockResult[] results = new MockResult[Math.max(1, execute.batchBindings().length)];
+            Arrays.fill(results, new MockResult(Statement.SUCCESS_NO_INFO));
+            return results;
+        }), SQLDialect.H2);
+        JooqRepository<Person, Person, Long> mockRepository = new PersonRepository(mockContext, TransactionMode.NONE);
+        assertEquals(2, mockRepository.updateAll(List.of(new Person(2, "Jane", "UK"), new Person(3, "Alice", "USA"))));
+    }
+
+    @Test
+    @Order(16)
+    void testFindAllById() {
+        Map<Long, Person> people = repository.findAllById(List.of(3L, 99L, 2L, 3L));
+        assertEquals(Map.of(3L, new Person(3, "Alice", "USA"), 2L, new Person(2, "Jane", "UK")), people);
+        assertEquals(List.of(3L, 2L), List.copyOf(people.keySet()));
+    }
+
+    @Test
+    @Order(17)
+    void testQueryShapeCache() {
+        QueryShapeCache cache = new QueryShapeCache(8);
+        JooqRepository<Person, Person, Long> cachedRepository = new PersonRepository(context) {
+            @Override
+            protected QueryShapeCache queryShapeCache() {
+                return cache;
+            }
+        };
+        ConditionExtractor<PersonRecord, PersonQuery> extractor = new ConditionExtractor<>(PERSON, PersonQuery.class);
+        OrderField<?> order = PERSON.NAME.asc();
+
+        Page<Person> usa = cachedRepository.query(extractor.extractShaped(new PersonQuery("USA", "a")), order, 0, 10);
+        assertEquals(new Page<>(List.of(new Person(3, "Alice", "USA")), 0, 10, 1, 1), usa);
+        Page<Person> uk = cachedRepository.query(extractor.extractShaped(new PersonQuery("UK", "J")), order, 0, 10);
+        assertEquals(new Page<>(List.of(new Person(2, "Jane", "UK")), 0, 10, 1, 1), uk);
+        Page<Person> all = cachedRepository.query(extractor.extractShaped(new PersonQuery(null, null)), order, 1, 1);
+        assertEquals(repository.query(DSL.noCondition(), order, 1, 1), all);
+
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    @Order(17)
+    void testQueryShapeCacheWithConvertedColumn() {
+        QueryShapeCache cache = new QueryShapeCache(8);
+        JooqRepository<Person, Person, Long> cachedRepository = new JooqRepository<>(context, PERSON, PERSON.ID, Person.class, Person.class) {
+            @Override
+            protected QueryShapeCache queryShapeCache() {
+                return cache;
+            }
+
+            @Override
+            protected SelectSelectStep<?> project(DSLContext context) {
+                return context.select(PERSON.ID, PERSON.NAME.convertFrom(name -> name.toUpperCase(Locale.ROOT)).as(PERSON.NAME), PERSON.COUNTRY);
+            }
+        };
+        ConditionExtractor<PersonRecord, PersonQuery> extractor = new ConditionExtractor<>(PERSON, PersonQuery.class);
+
+        for (int i = 0; i < 2; i++) {
+            Page<Person> page = cachedRepository.query(extractor.extractShaped(new PersonQuery("USA", null)), PERSON.NAME.asc(), 0, 10);
+            assertEquals(new Page<>(List.of(new Person(3, "ALICE", "USA")), 0, 10, 1, 1), page);
+        }
+        assertEquals(1, cache.hits());
+    }
+
+    @Test
+    @Order(18)
+    void testEntityCache() {
+        LruEntityCache<Long, Person> cache = new LruEntityCache<>(8, Duration.ofMinutes(1));
+        JooqRepository<Person, Person, Long> cachedRepository = new PersonRepository(context) {
+            @Override
+            protected EntityCache<Long, Person> entityCache() {
+                return cache;
+            }
+        };
+
+        assertEquals(Optional.of(new Person(2, "Jane", "UK")), cachedRepository.findById(2L));
+        assertEquals(Optional.of(new Person(2, "Jane", "UK")), cachedRepository.findById(2L));
+        assertTrue(cachedRepository.exists(2L));
+        assertFalse(cachedRepository.exists(100L));
+        assertEquals(Optional.empty(), cachedRepository.findById(100L));
+        // The existence checks do not count as hits or misses
+        assertEquals(new CacheStats(1, 2, 0), cache.stats());
+
+        cachedRepository.update(new Person(2, "Jane Updated", "UK"));
+        assertNull(cache.getIfPresent(2L));
+        assertEquals(Optional.of(new Person(2, "Jane Updated", "UK")), cachedRepository.findById(2L));
+
+        cachedRepository.updateAll(List.of(new Person(2, "Jane", "UK")));
+        assertEquals(Optional.of(new Person(2, "Jane", "UK")), cachedRepository.findById(2L));
+
+        cachedRepository.findById(3L);
+        cachedRepository.delete(3L);
+        assertFalse(cachedRepository.exists(3L));
+        assertEquals(Optional.empty(), cachedRepository.findById(3L));
+        cachedRepository.upsert(new Person(3, "Alice", "USA"));
+        assertEquals(Optional.of(new Person(3, "Alice", "USA")), cachedRepository.findById(3L));
+    }
+
+    @Test
+    @Order(19)
+    void testPageCache() {
+        PageCache cache = new PageCache(1024 * 1024, Duration.ofMinutes(1));
+        InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+        JooqRepository<Person, Person, Long> cachedRepository = new PersonRepository(context, TransactionMode.READ_WRITE) {
+            @Override
+            protected PageCache pageCache() {
+                return cache;
+            }
+
+            @Override
+            protected RepositoryMetrics metrics() {
+                return metrics;
+            }
+        };
+        OrderField<?> order = DSL.field("name").asc();
+        Page<Person> expected = new Page<>(List.of(new Person(3, "Alice", "USA"), new Person(2, "Jane", "UK")), 0, 10, 1, 2);
+
+        assertEquals(expected, cachedRepository.query(DSL.noCondition(), order, 0, 10));
+        assertEquals(expected, cachedRepository.query(DSL.noCondition(), order, 0, 10));
+        assertEquals(new Page<>(List.of(new Person(2, "Jane", "UK")), 1, 1, 2, 2), cachedRepository.query(DSL.noCondition(), order, 1, 1));
+        assertEquals(1, cache.hits());
+        assertEquals(2, cache.misses());
+        assertEquals(2, cache.size());
+        // A hit is returned without opening a transaction
+        assertEquals(2, metrics.snapshot("person", RepositoryOperation.QUERY).transactions().count());
+
+        Long id = cachedRepository.insert(new Person(null, "Bob", "UK"));
+        assertEquals(0, cache.size());
+        Page<Person> page = cachedRepository.query(DSL.noCondition(), order, 0, 10);
+        assertEquals(3, page.totalElements());
+        assertEquals(new Person(id.intValue(), "Bob", "UK"), page.content().get(1));
+
+        cachedRepository.delete(id);
+        assertEquals(expected, cachedRepository.query(DSL.noCondition(), order, 0, 10));
+        assertEquals(expected, cachedRepository.query(DSL.noCondition(), order, 0, 10));
+        assertEquals(2, cache.hits());
+    }
+
+    @Test
+    @Order(19)
+    void testFailedInsertAllInvalidatesPageCache() {
+        PageCache cache = new PageCache(1024 * 1024, Duration.ofMinutes(1));
+        JooqRepository<Person, Person, Long> cachedRepository = new PersonRepository(context) {
+            @Override
+            protected PageCache pageCache() {
+                return cache;
+            }
+
+            @Override
+            protected int batchSize() {
+                return 1;
+            }
+
+            @Override
+            protected List<Long> doInsertAll(DSLContext context, List<Person> entities) {
+                if (entities.get(0).name() == null) {
+                    throw new DataAccessException("Failed chunk");
+                }
+                return super.doInsertAll(context, entities);
+            }
+        };
+        OrderField<?> order = DSL.field("name").asc();
+        cachedRepository.query(DSL.noCondition(), order, 0, 10);
+        assertEquals(1, cache.size());
+
+        assertThrows(DataAccessException.class, () -> cachedRepository.insertAll(List.of(new Person(null, "Bob", "UK"),
+                new Person(null, null, "USA"))));
+        // The first chunk is committed, so the cached page is stale
+        assertEquals(0, cache.size());
+        Page<Person> page = cachedRepository.query(DSL.noCondition(), order, 0, 10);
+        assertEquals(3, page.totalElements());
+
+        cachedRepository.delete(page.content().get(1).id().longValue());
+        assertEquals(2, repository.count());
+    }
+
+    @Test
+    @Order(20)
+    void testMetrics() {
+        InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+        JooqRepository<Person, Person, Long> measuredRepository = new PersonRepository(context, TransactionMode.READ_WRITE) {
+            @Override
+            protected RepositoryMetrics metrics() {
+                return metrics;
+            }
+        };
+
+        measuredRepository.findById(2L);
+        measuredRepository.findById(100L);
+        measuredRepository.query(DSL.noCondition(), DSL.field("name").asc(), 0, 10);
+        try (Stream<Person> stream = measuredRepository.streamAll()) {
+            assertEquals(2, stream.count());
+        }
+        assertThrows(DataAccessException.class, () -> measuredRepository.insert(new Person(2, "Jane", "UK")));
+
+        InMemoryRepositoryMetrics.OperationSnapshot findById = metrics.snapshot("person", RepositoryOperation.FIND_BY_ID);
+        assertNotNull(findById);
+        assertEquals(2, findById.latency().count());
+        assertEquals(1, findById.rows());
+        assertEquals(0, findById.errors());
+        assertEquals(2, findById.transactions().count());
+        assertTrue(findById.latency().max() >= findById.transactions().max());
+
+        InMemoryRepositoryMetrics.OperationSnapshot query = metrics.snapshot("person", RepositoryOperation.QUERY);
+        assertNotNull(query);
+        assertEquals(2, query.rows());
+        InMemoryRepositoryMetrics.OperationSnapshot queryCount = metrics.snapshot("person", RepositoryOperation.QUERY_COUNT);
+        assertNotNull(queryCount);
+        assertEquals(1, queryCount.latency().count());
+        assertTrue(query.latency().max() >= queryCount.latency().max());
+
+        InMemoryRepositoryMetrics.OperationSnapshot streamAll = metrics.snapshot("person", RepositoryOperation.STREAM_ALL);
+        assertNotNull(streamAll);
+        assertEquals(2, streamAll.rows());
+        assertEquals(1, streamAll.transactions().count());
+
+        InMemoryRepositoryMetrics.OperationSnapshot insert = metrics.snapshot("person", RepositoryOperation.INSERT);
+        assertNotNull(insert);
+        assertEquals(1, insert.errors());
+        assertEquals(1, insert.rollbacks());
+        assertEquals(5, metrics.snapshot().size());
+    }
+
+    @Test
+    @Order(21)
+    void testFlightRecorderEvents() throws IOException {
+        Path file = Files.createTempFile("jooq4rest", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("com.javahelps.jooq4rest.RepositoryOperation").withoutThreshold();
+            recording.start();
+            repository.findById(2L);
+            repository.query(DSL.noCondition(), DSL.field("name").asc(), 1, 1);
+            recording.stop();
+            recording.dump(file);
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+            RecordedEvent findById = events.stream()
+                    .filter(event -> "FIND_BY_ID".equals(event.getString("operation")))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals("person", findById.getString("table"));
+            assertEquals(1, findById.getLong("rows"));
+            assertEquals(-1, findById.getInt("pageSize"));
+            assertFalse(findById.getBoolean("failed"));
+
+            RecordedEvent query = events.stream()
+                    .filter(event -> "QUERY".equals(event.getString("operation")))
+                    .findFirst()
+                    .orElseThrow();
+            assertEquals(1, query.getInt("pageNumber"));
+            assertEquals(1, query.getInt("pageSize"));
+            assertEquals(1, query.getLong("rows"));
+            assertFalse(query.getBoolean("transactional"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    @Order(22)
+    void testSlowQueryListener() {
+        List<SlowQuery> reports = new ArrayList<>();
+        SlowQueryListener listener = new SlowQueryListener(Duration.ZERO, true, 10, reports::add);
+        JooqRepository<Person, Person, Long> listenedRepository = new PersonRepository(context) {
+            @Override
+            protected SlowQueryListener slowQueryListener() {
+                return listener;
+            }
+        };
+
+        Page<Person> page = listenedRepository.query(PERSON.COUNTRY.eq("UK"), PERSON.ID.asc(), 0, 10);
+        assertEquals(1, page.content().size());
+        assertFalse(reports.isEmpty());
+        SlowQuery report = reports.getFirst();
+        assertTrue(report.bindValues().contains("UK"));
+        assertNotNull(report.plan());
+
+        reports.clear();
+        assertEquals(1, listenedRepository.update(new Person(2, "Jane", "UK")));
+        assertEquals(1, reports.size());
+        assertTrue(reports.getFirst().sql().startsWith("update"));
+    }
+
+    @Test
+    @Order(23)
+    void testQueryCoalescer() {
+        QueryCoalescer coalescer = new QueryCoalescer(Duration.ofSeconds(5));
+        JooqRepository<Person, Person, Long> coalescingRepository = new PersonRepository(context, TransactionMode.READ_WRITE) {
+            @Override
+            protected QueryCoalescer queryCoalescer() {
+                return coalescer;
+            }
+        };
+
+        Page<Person> page = coalescingRepository.query(PERSON.COUNTRY.eq("UK"), PERSON.ID.asc(), 0, 10);
+        assertEquals(new Page<>(List.of(new Person(2, "Jane", "UK")), 0, 10, 1, 1), page);
+        ConditionExtractor<PersonRecord, PersonQuery> extractor = new ConditionExtractor<>(PERSON, PersonQuery.class);
+        Page<Person> shaped = coalescingRepository.query(extractor.extractShaped(new PersonQuery("USA", null)), PERSON.ID.asc(), 0, 10);
+        assertEquals(List.of(new Person(3, "Alice", "USA")), shaped.content());
+        assertEquals(2, coalescer.executions());
+        assertEquals(0, coalescer.coalesced());
+    }
+
+    @Test
+    @Order(23)
+    void testCoalescedQueriesWaitBeforeTransaction() throws InterruptedException {
+        int callers = 4;
+        QueryCoalescer coalescer = new QueryCoalescer(Duration.ofSeconds(5));
+        InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+        JooqRepository<Person, Person, Long> coalescingRepository = new PersonRepository(context, TransactionMode.READ_WRITE) {
+            @Override
+            protected QueryCoalescer queryCoalescer() {
+                return coalescer;
+            }
+
+            @Override
+            protected RepositoryMetrics metrics() {
+                return metrics;
+            }
+
+            @Override
+            protected Page<Person> doQuery(DSLContext context, Condition condition, OrderField<?> order, int pageNumber, int pageSize) {
+                // The first caller queries once the other callers wait for it
+                long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+                while (coalescer.coalesced() < callers - 1 && System.nanoTime() < deadline) {
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+                return super.doQuery(context, condition, order, pageNumber, pageSize);
+            }
+        };
+
+        List<Page<Person>> pages = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            threads.add(Thread.ofVirtual().start(() -> pages.add(coalescingRepository.query(PERSON.COUNTRY.eq("UK"), PERSON.ID.asc(), 0, 10))));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(Collections.nCopies(callers, new Page<>(List.of(new Person(2, "Jane", "UK")), 0, 10, 1, 1)), pages);
+        assertEquals(1, coalescer.executions());
+        assertEquals(callers - 1, coalescer.coalesced());
+        // Only the first caller opened a transaction
+        assertEquals(1, metrics.snapshot("person", RepositoryOperation.QUERY).transactions().count());
+    }
+
+    @Test
+    @Order(24)
+    void testSnapshotReadWrite() {
+        InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+        List<Boolean> autoCommit = new ArrayList<>();
+        List<Integer> isolation = new ArrayList<>();
+        JooqRepository<Person, Person, Long> snapshotRepository = new PersonRepository(context, TransactionMode.SNAPSHOT_READ_WRITE) {
+            @Override
+            protected Page<Person> doQuery(DSLContext context, Condition condition, OrderField<?> order, int pageNumber, int pageSize) {
+                context.connection(connection -> {
+                    autoCommit.add(connection.getAutoCommit());
+                    isolation.add(connection.getTransactionIsolation());
+                });
+                return super.doQuery(context, condition, order, pageNumber, pageSize);
+            }
+
+            @Override
+            protected RepositoryMetrics metrics() {
+                return metrics;
+            }
+        };
+        int defaultIsolation = context.connectionResult(Connection::getTransactionIsolation);
+
+        Page<Person> page = snapshotRepository.query(PERSON.COUNTRY.eq("UK"), PERSON.ID.asc(), 0, 10);
+        assertEquals(new Page<>(List.of(new Person(2, "Jane", "UK")), 0, 10, 1, 1), page);
+        // H2 reports the read-only mode of the database instead of the read-only hint of the connection
+        assertEquals(List.of(false), autoCommit);
+        assertEquals(List.of(Connection.TRANSACTION_REPEATABLE_READ), isolation);
+        assertEquals(1, metrics.snapshot("person", RepositoryOperation.QUERY).transactions().count());
+
+        // The connection is restored after the transaction
+        assertFalse(context.connectionResult(Connection::isReadOnly));
+        assertTrue(context.connectionResult(Connection::getAutoCommit));
+        assertEquals(defaultIsolation, context.connectionResult(Connection::getTransactionIsolation));
+
+        // Single statement reads run without a transaction
+        assertTrue(snapshotRepository.exists(2L));
+        assertEquals(Optional.of(new Person(2, "Jane", "UK")), snapshotRepository.findById(2L));
+        assertEquals(0, metrics.snapshot("person", RepositoryOperation.EXISTS).transactions().count());
+        assertEquals(0, metrics.snapshot("person", RepositoryOperation.FIND_BY_ID).transactions().count());
+
+        try (Stream<Person> stream = snapshotRepository.streamAll()) {
+            assertEquals(2, stream.count());
+        }
+        assertEquals(1, metrics.snapshot("person", RepositoryOperation.STREAM_ALL).transactions().count());
+        assertFalse(context.connectionResult(Connection::isReadOnly));
+    }
+
+    @Test
+    @Order(25)
+    void testEstimatedCount() {
+        List<Condition> estimated = new ArrayList<>();
+        JooqRepository<Person, Person, Long> estimatingRepository = new PersonRepository(context) {
+            @Override
+            protected CountStrategy countStrategy() {
+                return CountStrategy.ESTIMATED;
+            }
+
+            @Override
+            protected RowCountEstimator rowCountEstimator() {
+                return (context, table, condition) -> {
+                    estimated.add(condition);
+                    return RowCountEstimator.h2().estimate(context, table, condition);
+                };
+            }
+        };
+
+        assertEquals(2, estimatingRepository.count());
+        assertEquals(1, estimated.size());
+
+        // A full page is estimated
+        Page<Person> page = estimatingRepository.query(DSL.noCondition(), PERSON.ID.asc(), 0, 1);
+        assertEquals(new Page<>(List.of(new Person(2, "Jane", "UK")), 0, 1, 2, 2, true), page);
+        assertEquals(2, estimated.size());
+
+        // The last page is exact without counting
+        page = estimatingRepository.query(DSL.noCondition(), PERSON.ID.asc(), 0, 10);
+        assertEquals(new Page<>(List.of(new Person(2, "Jane", "UK"), new Person(3, "Alice", "USA")), 0, 10, 1, 2), page);
+        assertEquals(2, estimated.size());
+
+        // H2 has no estimates of filtered rows
+        page = estimatingRepository.query(PERSON.COUNTRY.in("UK", "USA"), PERSON.ID.asc(), 0, 1);
+        assertEquals(new Page<>(List.of(new Person(2, "Jane", "UK")), 0, 1, 2, 2), page);
+        assertEquals(3, estimated.size());
+
+        // Estimates beyond the range of an int are kept
+        JooqRepository<Person, Person, Long> largeRepository = new PersonRepository(context) {
+            @Override
+            protected CountStrategy countStrategy() {
+                return CountStrategy.ESTIMATED;
+            }
+
+            @Override
+            protected RowCountEstimator rowCountEstimator() {
+                return (context, table, condition) -> OptionalLong.of(5_000_000_000L);
+            }
+        };
+        page = largeRepository.query(DSL.noCondition(), PERSON.ID.asc(), 0, 1);
+        assertEquals(5_000_000_000L, page.totalElements());
+        assertTrue(page.estimatedTotal());
+    }
+
+    @Test
+    @Order(26)
+    void testStreamTransactionFailures() throws SQLException {
+        Connection delegate = DriverManager.getConnection("jdbc:h2:mem:JooqRepositoryTest;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
+        List<String> calls = new ArrayList<>();
+        Connection connection = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+            calls.add(method.getName());
+            if (method.getName().equals("commit")) {
+                throw new SQLException("Commit failed");
+            }
+            try {
+                return method.invoke(delegate, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+        AtomicInteger acquired = new AtomicInteger();
+        ConnectionProvider connectionProvider = new ConnectionProvider() {
+            @Override
+            public Connection acquire() {
+                acquired.incrementAndGet();
+                return connection;
+            }
+
+            @Override
+            public void release(Connection released) {
+                acquired.decrementAndGet();
+            }
+        };
+        JooqRepository<Person, Person, Long> failingRepository = new PersonRepository(DSL.using(connectionProvider, SQLDialect.H2), TransactionMode.SNAPSHOT_READ_WRITE) {
+            @Override
+            protected Stream<Person> doStreamAll(DSLContext context) {
+                if (calls.contains("rollback")) {
+                    throw new AssertionError("Streamer failed");
+                }
+                return super.doStreamAll(context);
+            }
+        };
+        int isolation = delegate.getTransactionIsolation();
+
+        try (delegate) {
+            // A failed commit is rolled back and the connection is restored before it is released
+            assertThrows(DataAccessException.class, () -> {
+                try (Stream<Person> stream = failingRepository.streamAll()) {
+                    assertEquals(2, stream.count());
+                }
+            });
+            assertTrue(calls.contains("rollback"));
+            assertEquals(0, acquired.get());
+            assertTrue(delegate.getAutoCommit());
+            assertEquals(isolation, delegate.getTransactionIsolation());
+
+            // An error of the streamer releases the connection
+            assertThrows(AssertionError.class, failingRepository::streamAll);
+            assertEquals(0, acquired.get());
+            assertTrue(delegate.getAutoCommit());
+        }
+    }
+
+    @Test
+    @Order(27)
+    void testWritesRunInTheirTransaction() throws SQLException {
+        JdbcConnectionPool pool = JdbcConnectionPool.create("jdbc:h2:mem:JooqRepositoryTestPool;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
+        // A statement outside the transaction would wait for a second connection and time out
+        pool.setMaxConnections(1);
+        pool.setLoginTimeout(1);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+        }
+        try {
+            PersonRepository pooledRepository = new PersonRepository(DSL.using(pool, SQLDialect.H2), TransactionMode.WRITE_ONLY);
+
+            Long id = pooledRepository.insert(new Person(null, "John", "USA"));
+            assertEquals(1, pooledRepository.update(new Person(id.intValue(), "John", "UK")));
+            assertEquals(Optional.of(new Person(id.intValue(), "John", "UK")), pooledRepository.findById(id));
+            assertEquals(1, pooledRepository.delete(id));
+            assertEquals(0, pool.getActiveConnections());
+        } finally {
+            try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("DROP TABLE person");
+            }
+            pool.dispose();
+        }
+    }
+
+    @Test
+    @Order(28)
+    void testStreamsRunInTransaction() {
+        List<Boolean> autoCommit = new ArrayList<>();
+        PersonRepository streamingRepository = new PersonRepository(context, TransactionMode.WRITE_ONLY) {
+            @Override
+            protected Stream<Person> doStreamAll(DSLContext context) {
+                autoCommit.add(context.connectionResult(Connection::getAutoCommit));
+                return super.doStreamAll(context);
+            }
+        };
+
+        // Drivers such as the PostgreSQL one only honor the fetch size with auto-commit disabled
+        try (Stream<Person> stream = streamingRepository.streamAll()) {
+            assertEquals(2, stream.count());
+        }
+        assertEquals(List.of(false), autoCommit);
+        assertTrue(context.connectionResult(Connection::getAutoCommit));
+    }
+
+    record PersonQuery(@Equal("country") String country,
+                       @LikeIgnoreCase("name") String name) {
+    }
 }
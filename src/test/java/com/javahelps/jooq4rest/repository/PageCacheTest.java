@@ -0,0 +1,93 @@
+package com.javahelps.jooq4rest.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCacheTest {
+
+    @Test
+    void testCapacityEviction() {
+        PageCache cache = new PageCache(38, 19, Duration.ofMinutes(1), System::nanoTime);
+        cache.put(key(1), cache.epoch(), new PageCache.CachedPage(1, true, "0123456789"));
+        cache.put(key(2), cache.epoch(), new PageCache.CachedPage(2, false, "0123456789"));
+        assertEquals(38, cache.bytes());
+
+        assertEquals(new PageCache.CachedPage(1, true, "0123456789"), cache.get(key(1)));
+        cache.put(key(3), cache.epoch(), new PageCache.CachedPage(3, false, "0123456789"));
+        assertNull(cache.get(key(2)));
+        assertNotNull(cache.get(key(1)));
+        assertNotNull(cache.get(key(3)));
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictions());
+
+        cache.put(key(4), cache.epoch(), new PageCache.CachedPage(4, false, "0123456789".repeat(3)));
+        assertNull(cache.get(key(4)));
+    }
+
+    @Test
+    void testBlocksAreReused() {
+        PageCache cache = new PageCache(64, 16, Duration.ofMinutes(1), System::nanoTime);
+        // 9 header bytes and 30 bytes of result take 3 blocks
+        String result = "abcdefghij".repeat(3);
+        cache.put(key(1), cache.epoch(), new PageCache.CachedPage(1, false, result));
+        assertEquals(new PageCache.CachedPage(1, false, result), cache.get(key(1)));
+
+        // The second page needs 3 of the 4 blocks and evicts the first one
+        cache.put(key(2), cache.epoch(), new PageCache.CachedPage(2, false, result.toUpperCase(Locale.ROOT)));
+        assertNull(cache.get(key(1)));
+        assertEquals(new PageCache.CachedPage(2, false, result.toUpperCase(Locale.ROOT)), cache.get(key(2)));
+
+        // Invalidated pages release their blocks
+        cache.invalidateAll();
+        assertEquals(0, cache.bytes());
+        cache.put(key(3), cache.epoch(), new PageCache.CachedPage(3, true, "[]"));
+        cache.put(key(4), cache.epoch(), new PageCache.CachedPage(4, true, "[]"));
+        cache.put(key(5), cache.epoch(), new PageCache.CachedPage(5, true, "[]"));
+        cache.put(key(6), cache.epoch(), new PageCache.CachedPage(6, true, "[]"));
+        assertEquals(4, cache.size());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void testCapacityBelowBlockSize() {
+        assertThrows(IllegalArgumentException.class, () -> new PageCache(PageCache.DEFAULT_BLOCK_SIZE - 1, Duration.ofMinutes(1)));
+    }
+
+    @Test
+    void testTotalBeyondIntRange() {
+        PageCache cache = new PageCache(1024, Duration.ofMinutes(1));
+        cache.put(key(1), cache.epoch(), new PageCache.CachedPage(5_000_000_000L, true, "[]"));
+        assertEquals(new PageCache.CachedPage(5_000_000_000L, true, "[]"), cache.get(key(1)));
+    }
+
+    @Test
+    void testTimeToLive() {
+        AtomicLong now = new AtomicLong();
+        PageCache cache = new PageCache(1024, 16, Duration.ofSeconds(10), now::get);
+        cache.put(key(1), cache.epoch(), new PageCache.CachedPage(1, false, "[]"));
+        now.set(Duration.ofSeconds(10).toNanos());
+        assertNull(cache.get(key(1)));
+        assertEquals(0, cache.bytes());
+        assertEquals(1, cache.evictions());
+    }
+
+    @Test
+    void testInvalidationDuringQuery() {
+        PageCache cache = new PageCache(1024, Duration.ofMinutes(1));
+        long epoch = cache.epoch();
+        cache.invalidateAll();
+        cache.put(key(1), epoch, new PageCache.CachedPage(1, false, "[]"));
+        assertNull(cache.get(key(1)));
+        assertEquals(0, cache.size());
+    }
+
+    private static PageCache.Key key(int page) {
+        return new PageCache.Key("select * from person offset ? rows fetch next ? rows only", List.of(page, 10));
+    }
+}
@@ -11,4 +11,8 @@ public class PersonRepository extends UnifiedJooqRepository<Person, Long> {
         super(context, PERSON, PERSON.ID, Person.class);
     }
 
+    public PersonRepository(DSLContext context, TransactionMode transactionMode) {
+        super(context, PERSON, PERSON.ID, Person.class, transactionMode);
+    }
+
 }
@@ -0,0 +1,130 @@
+package com.javahelps.jooq4rest.repository;
+
+import org.jooq.exception.DataAccessException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCoalescerTest {
+
+    @Test
+    void testConcurrentQueriesShareExecution() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                await(release);
+                return "page";
+            }));
+            started.await();
+            List<Future<String>> waiters = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                waiters.add(executor.submit(() -> coalescer.execute("key", () -> {
+                    executions.incrementAndGet();
+                    return "other";
+                })));
+            }
+            while (coalescer.coalesced() < 10) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals("page", leader.get());
+            for (Future<String> waiter : waiters) {
+                assertEquals("page", waiter.get());
+            }
+        }
+        assertEquals(1, executions.get());
+        assertEquals(1, coalescer.executions());
+
+        // Nothing is kept after the execution
+        assertEquals("next", coalescer.execute("key", () -> "next"));
+        assertEquals(2, coalescer.executions());
+    }
+
+    @Test
+    void testFailurePropagatesToWaiters() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                throw new DataAccessException("Query failed");
+            }));
+            started.await();
+            Future<String> waiter = executor.submit(() -> coalescer.execute("key", () -> "other"));
+            while (coalescer.coalesced() < 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertInstanceOf(DataAccessException.class, assertThrows(ExecutionException.class, leader::get).getCause());
+            assertInstanceOf(DataAccessException.class, assertThrows(ExecutionException.class, waiter::get).getCause());
+        }
+        assertEquals(1, coalescer.executions());
+    }
+
+    @Test
+    void testBoundedWait() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(Duration.ofMillis(10));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                return "page";
+            }));
+            started.await();
+            assertEquals("own", coalescer.execute("key", () -> "own"));
+            release.countDown();
+            assertEquals("page", leader.get());
+        }
+        assertEquals(1, coalescer.timeouts());
+        assertEquals(2, coalescer.executions());
+    }
+
+    @Test
+    void testInvalidateAll() throws Exception {
+        QueryCoalescer coalescer = new QueryCoalescer(Duration.ofSeconds(5));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<String> leader = executor.submit(() -> coalescer.execute("key", () -> {
+                started.countDown();
+                await(release);
+                return "before write";
+            }));
+            started.await();
+            coalescer.invalidateAll();
+            assertEquals("after write", coalescer.execute("key", () -> "after write"));
+            release.countDown();
+            assertEquals("before write", leader.get());
+        }
+        assertEquals(0, coalescer.coalesced());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.javahelps.jooq4rest.repository;
+
+import com.javahelps.jooq4rest.repository.dto.Person;
+import io.r2dbc.h2.H2ConnectionConfiguration;
+import io.r2dbc.h2.H2ConnectionFactory;
+import io.r2dbc.spi.Connection;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.jooq.DSLContext;
+import org.jooq.OrderField;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Publisher;
+import reactor.core.publisher.Mono;
+
+import java.lang.reflect.Proxy;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.javahelps.jooq4rest.repository.jooq.Person.PERSON;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReactiveJooqRepositoryTest {
+
+    private static final String URL = "mem:ReactiveJooqRepositoryTest;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE";
+
+    private static java.sql.Connection connection;
+    private static ConnectionFactory connectionFactory;
+
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:" + URL, "test", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+            for (int i = 1; i <= 100; i++) {
+                statement.execute("INSERT INTO person (name, country) VALUES ('Person " + i + "', '" + (i % 2 == 0 ? "UK" : "USA") + "')");
+            }
+        }
+        connectionFactory = new H2ConnectionFactory(H2ConnectionConfiguration.builder()
+                .url(URL)
+                .username("test")
+                .build());
+    }
+
+    @AfterAll
+    public static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void testQueries() throws InterruptedException {
+        ReactivePersonRepository repository = new ReactivePersonRepository(DSL.using(connectionFactory, SQLDialect.H2));
+        OrderField<?> order = PERSON.ID.asc();
+
+        assertEquals(List.of(100L), collect(repository.count(), Long.MAX_VALUE).items);
+        assertEquals(List.of(new Person(2, "Person 2", "UK")), collect(repository.findById(2L), Long.MAX_VALUE).items);
+        assertEquals(List.of(), collect(repository.findById(1000L), Long.MAX_VALUE).items);
+        assertEquals(100, collect(repository.findAll(), Long.MAX_VALUE).items.size());
+        assertEquals(List.of(new Person(6, "Person 6", "UK"), new Person(8, "Person 8", "UK")),
+                collect(repository.query(PERSON.COUNTRY.eq("UK"), order, 1, 2), Long.MAX_VALUE).items);
+        assertEquals(50, collect(repository.stream(PERSON.COUNTRY.eq("USA"), order), 1).items.size());
+    }
+
+    @Test
+    void testTransactionalRead() throws InterruptedException {
+        ReactivePersonRepository repository = new ReactivePersonRepository(DSL.using(connectionFactory, SQLDialect.H2), TransactionMode.READ_WRITE);
+        assertEquals(List.of(new Person(1, "Person 1", "USA")), collect(repository.findById(1L), Long.MAX_VALUE).items);
+    }
+
+    @Test
+    void testCancellationReleasesConnection() throws InterruptedException {
+        AtomicInteger open = new AtomicInteger();
+        ReactivePersonRepository repository = new ReactivePersonRepository(DSL.using(counting(connectionFactory, open), SQLDialect.H2));
+
+        CountDownLatch received = new CountDownLatch(3);
+        List<Person> people = new CopyOnWriteArrayList<>();
+        repository.stream(DSL.noCondition(), PERSON.ID.asc()).subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(Person item) {
+                people.add(item);
+                received.countDown();
+                if (received.getCount() == 0) {
+                    this.subscription.cancel();
+                } else {
+                    this.subscription.request(1);
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+            }
+
+            @Override
+            public void onComplete() {
+            }
+        });
+        assertTrue(received.await(10, TimeUnit.SECONDS));
+        assertEquals(3, people.size());
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (open.get() != 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, open.get());
+    }
+
+    private static <T> Collector<T> collect(Flow.Publisher<T> publisher, long batch) throws InterruptedException {
+        Collector<T> collector = new Collector<>(batch);
+        publisher.subscribe(collector);
+        assertTrue(collector.done.await(10, TimeUnit.SECONDS));
+        if (collector.error != null) {
+            fail(collector.error);
+        }
+        return collector;
+    }
+
+    /**
+     * Wraps a connection factory to count the connections that are not closed yet.
+     */
+    private static ConnectionFactory counting(ConnectionFactory connectionFactory, AtomicInteger open) {
+        return new ConnectionFactory() {
+            @Override
+            public Publisher<? extends Connection> create() {
+                return Mono.from(connectionFactory.create()).map(connection -> {
+                    open.incrementAndGet();
+                    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        Object result = method.invoke(connection, args);
+                        if (method.getName().equals("close")) {
+                            return Mono.from((Publisher<?>) result).doOnTerminate(open::decrementAndGet);
+                        }
+                        return result;
+                    });
+                });
+            }
+
+            @Override
+            public ConnectionFactoryMetadata getMetadata() {
+                return connectionFactory.getMetadata();
+            }
+        };
+    }
+
+    /**
+     * Requests the items in batches of the given size, as a slow consumer would.
+     */
+    private static class Collector<T> implements Flow.Subscriber<T> {
+
+        private final long batch;
+        private final List<T> items = new CopyOnWriteArrayList<>();
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Flow.Subscription subscription;
+        private long pending;
+        private Throwable error;
+
+        private Collector(long batch) {
+            this.batch = batch;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            this.pending = this.batch;
+            subscription.request(this.batch);
+        }
+
+        @Override
+        public void onNext(T item) {
+            this.items.add(item);
+            if (--this.pending == 0) {
+                this.pending = this.batch;
+                this.subscription.request(this.batch);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            this.error = throwable;
+            this.done.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            this.done.countDown();
+        }
+    }
+
+    private static class ReactivePersonRepository extends ReactiveJooqRepository<Person, Person, Long> {
+
+        private ReactivePersonRepository(DSLContext context) {
+            super(context, PERSON, PERSON.ID, Person.class, Person.class);
+        }
+
+        private ReactivePersonRepository(DSLContext context, TransactionMode transactionMode) {
+            super(context, PERSON, PERSON.ID, Person.class, Person.class, transactionMode);
+        }
+    }
+}
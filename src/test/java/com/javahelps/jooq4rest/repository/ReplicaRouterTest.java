@@ -0,0 +1,144 @@
+package com.javahelps.jooq4rest.repository;
+
+import com.javahelps.jooq4rest.repository.dto.Person;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static com.javahelps.jooq4rest.repository.jooq.Person.PERSON;
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplicaRouterTest {
+
+    private static final List<Connection> connections = new ArrayList<>();
+    private static DSLContext primary;
+    private static DSLContext replica1;
+    private static DSLContext replica2;
+
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        primary = database("primary");
+        replica1 = database("replica1");
+        replica2 = database("replica2");
+    }
+
+    @AfterAll
+    public static void tearDown() throws SQLException {
+        for (Connection connection : connections) {
+            connection.close();
+        }
+    }
+
+    /**
+     * Creates a database whose only person is named after it, so that reads tell which database they went to.
+     */
+    private static DSLContext database(String name) throws SQLException {
+        Connection connection = DriverManager.getConnection("jdbc:h2:mem:ReplicaRouterTest-" + name + ";DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
+        connections.add(connection);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+            statement.execute("INSERT INTO person (name, country) VALUES ('" + name + "', 'USA')");
+        }
+        return DSL.using(connection, SQLDialect.H2);
+    }
+
+    @Test
+    void testRoundRobin() {
+        JooqRepository<Person, Person, Long> repository = repository(new ReplicaRouter(List.of(replica1, replica2), ReplicaSelection.ROUND_ROBIN));
+        assertEquals(List.of("replica1", "replica2", "replica1", "replica2"),
+                List.of(readFrom(repository), readFrom(repository), readFrom(repository), readFrom(repository)));
+    }
+
+    @Test
+    void testLeastLoaded() {
+        ReplicaRouter router = new ReplicaRouter(List.of(replica1, replica2), ReplicaSelection.LEAST_LOADED);
+        JooqRepository<Person, Person, Long> repository = repository(router);
+
+        // An open stream in a transaction holds a connection of the first replica
+        JooqRepository<Person, Person, Long> transactionalRepository = new PersonRepository(primary, TransactionMode.READ_WRITE) {
+            @Override
+            protected ReplicaRouter replicaRouter() {
+                return router;
+            }
+        };
+        try (Stream<Person> stream = transactionalRepository.streamAll()) {
+            assertEquals(List.of(1, 0), router.activeConnections());
+            assertEquals(List.of("replica2", "replica2", "replica2"),
+                    List.of(readFrom(repository), readFrom(repository), readFrom(repository)));
+            assertEquals("replica1", stream.findFirst().orElseThrow().name());
+        }
+        assertEquals(List.of(0, 0), router.activeConnections());
+    }
+
+    @Test
+    void testReadYourWrites() {
+        ReplicaRouter router = new ReplicaRouter(List.of(replica1), ReplicaSelection.ROUND_ROBIN, Duration.ofMinutes(1));
+        JooqRepository<Person, Person, Long> repository = repository(router);
+        assertEquals("replica1", readFrom(repository));
+
+        Long id = repository.insert(new Person(null, "Bob", "UK"));
+        assertEquals(Optional.of(new Person(id.intValue(), "Bob", "UK")), repository.findById(id));
+        assertEquals("primary", readFrom(repository));
+        assertEquals(2, repository.count());
+        assertEquals(1, primary.deleteFrom(PERSON).where(PERSON.ID.eq(id)).execute());
+    }
+
+    @Test
+    void testReadYourWritesWindowExpires() throws InterruptedException {
+        ReplicaRouter router = new ReplicaRouter(List.of(replica1), ReplicaSelection.ROUND_ROBIN, Duration.ofMillis(50));
+        JooqRepository<Person, Person, Long> repository = repository(router);
+        repository.update(new Person(1, "primary", "USA"));
+        assertEquals("primary", readFrom(repository));
+        Thread.sleep(100);
+        assertEquals("replica1", readFrom(repository));
+    }
+
+    @Test
+    void testOtherThreadsReadFromPrimary() throws InterruptedException {
+        ReplicaRouter router = new ReplicaRouter(List.of(replica1), ReplicaSelection.ROUND_ROBIN, Duration.ofMinutes(1));
+        JooqRepository<Person, Person, Long> repository = repository(router);
+        repository.update(new Person(1, "primary", "USA"));
+
+        List<String> names = new ArrayList<>();
+        Thread thread = Thread.ofVirtual().start(() -> names.add(readFrom(repository)));
+        thread.join();
+        assertEquals(List.of("primary"), names);
+    }
+
+    @Test
+    void testAsyncReadYourWrites() {
+        ReplicaRouter router = new ReplicaRouter(List.of(replica1), ReplicaSelection.ROUND_ROBIN, Duration.ofMinutes(1));
+        AsyncRepository<Person, Person, Long> repository = new VirtualThreadAsyncRepository<>(repository(router), 4);
+        assertEquals("replica1", repository.findById(1L).toCompletableFuture().join().orElseThrow().name());
+
+        // The write and the read run on different virtual threads
+        repository.update(new Person(1, "primary", "USA")).toCompletableFuture().join();
+        assertEquals("primary", repository.findById(1L).toCompletableFuture().join().orElseThrow().name());
+    }
+
+    private static String readFrom(JooqRepository<Person, Person, Long> repository) {
+        return repository.findById(1L).orElseThrow().name();
+    }
+
+    private static JooqRepository<Person, Person, Long> repository(ReplicaRouter router) {
+        return new PersonRepository(primary) {
+            @Override
+            protected ReplicaRouter replicaRouter() {
+                return router;
+            }
+        };
+    }
+}
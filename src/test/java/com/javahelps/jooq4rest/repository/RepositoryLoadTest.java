@@ -0,0 +1,245 @@
+package com.javahelps.jooq4rest.repository;
+
+import com.javahelps.jooq4rest.metrics.HistogramSnapshot;
+import com.javahelps.jooq4rest.metrics.LatencyHistogram;
+import com.javahelps.jooq4rest.repository.dto.Person;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import static com.javahelps.jooq4rest.repository.jooq.Person.PERSON;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Drives a mix of repository operations from many concurrent callers and fails when the throughput, the latency tail
+ * or the error rate exceed the budget in {@code load-budget.properties}.
+ * <p>
+ * Excluded from the default build. Run it with {@code mvn test -Pload}, and configure it with system properties such
+ * as {@code -Dload.callers=128 -Dload.duration=PT1M -Dload.database=file
+ * -Dload.mix=findById=70,query=10,insert=10,update=5,delete=5}. Any budget can be overridden the same way, for example
+ * {@code -Dload.budget.p99Millis=50}.
+ */
+@Tag("load")
+@SuppressWarnings("SqlNoDataSourceInspection")
+class RepositoryLoadTest {
+
+    private static final int ROWS = 10_000;
+    private static final List<String> COUNTRIES = List.of("USA", "UK", "LK");
+
+    private static final int CALLERS = Integer.getInteger("load.callers", 64);
+    private static final int POOL_SIZE = Integer.getInteger("load.poolSize", 16);
+    private static final Duration WARMUP = Duration.parse(System.getProperty("load.warmup", "PT5S"));
+    private static final Duration DURATION = Duration.parse(System.getProperty("load.duration", "PT20S"));
+    private static final Duration INTERVAL = Duration.parse(System.getProperty("load.interval", "PT1S"));
+    private static final String DATABASE = System.getProperty("load.database", "mem");
+    private static final Map<Operation, Integer> MIX = mix(System.getProperty("load.mix", "findById=60,query=20,insert=10,update=5,delete=5"));
+
+    private static JdbcConnectionPool pool;
+    private static DSLContext context;
+    private static Properties budget;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        String url = DATABASE.equals("file") ? "jdbc:h2:file:./target/load/RepositoryLoadTest" : "jdbc:h2:mem:RepositoryLoadTest;DB_CLOSE_DELAY=-1";
+        pool = JdbcConnectionPool.create(url + ";DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
+        pool.setMaxConnections(POOL_SIZE);
+        context = DSL.using(pool, SQLDialect.H2);
+        budget = new Properties();
+        try (InputStream input = Objects.requireNonNull(RepositoryLoadTest.class.getResourceAsStream("/load-budget.properties"))) {
+            budget.load(input);
+        }
+    }
+
+    @AfterAll
+    static void tearDown() {
+        pool.dispose();
+    }
+
+    static Stream<Arguments> cases() {
+        return Stream.of(true, false)
+                .flatMap(virtual -> Arrays.stream(TransactionMode.values()).map(mode -> Arguments.of(virtual, mode)));
+    }
+
+    @ParameterizedTest(name = "virtual threads: {0}, {1}")
+    @MethodSource("cases")
+    void testLoad(boolean virtual, TransactionMode transactionMode) throws Exception {
+        String name = (virtual ? "virtual" : "platform") + " " + transactionMode;
+        seed();
+        Load load = new Load(new PersonRepository(context, transactionMode));
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor();
+        long start = System.nanoTime();
+        reporter.scheduleAtFixedRate(() -> load.report(name, start), INTERVAL.toNanos(), INTERVAL.toNanos(), TimeUnit.NANOSECONDS);
+        try (ExecutorService callers = virtual ? Executors.newVirtualThreadPerTaskExecutor() : Executors.newFixedThreadPool(CALLERS)) {
+            long warmupEnd = start + WARMUP.toNanos();
+            long end = warmupEnd + DURATION.toNanos();
+            List<Future<?>> futures = new ArrayList<>(CALLERS);
+            for (int i = 0; i < CALLERS; i++) {
+                futures.add(callers.submit(() -> load.run(warmupEnd, end)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            reporter.shutdownNow();
+        }
+
+        HistogramSnapshot total = load.total.snapshot();
+        double throughput = total.count() / (DURATION.toNanos() / 1e9);
+        double errorRate = (double) load.errors.sum() / Math.max(1, total.count());
+        System.out.printf("[%s] total: %.0f ops/s, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, error rate %.4f%n",
+                name, throughput, millis(total.p50()), millis(total.p99()), millis(total.p999()), errorRate);
+
+        double minThroughput = budget("minThroughput");
+        double p99 = budget("p99Millis");
+        double p999 = budget("p999Millis");
+        double maxErrorRate = budget("maxErrorRate");
+        assertAll(name,
+                () -> assertTrue(throughput >= minThroughput, "Throughput " + throughput + " ops/s is below the budget of " + minThroughput),
+                () -> assertTrue(millis(total.p99()) <= p99, "p99 " + millis(total.p99()) + " ms exceeds the budget of " + p99),
+                () -> assertTrue(millis(total.p999()) <= p999, "p999 " + millis(total.p999()) + " ms exceeds the budget of " + p999),
+                () -> assertTrue(errorRate <= maxErrorRate, "Error rate " + errorRate + " exceeds the budget of " + maxErrorRate));
+    }
+
+    private static void seed() throws SQLException {
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS person");
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+            statement.execute("CREATE INDEX person_country ON person (country)");
+            statement.execute("INSERT INTO person (name, country) " +
+                    "SELECT 'Person ' || x, CASE MOD(x, 3) WHEN 0 THEN 'USA' WHEN 1 THEN 'UK' ELSE 'LK' END " +
+                    "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        }
+    }
+
+    private static double budget(String key) {
+        return Double.parseDouble(System.getProperty("load.budget." + key, budget.getProperty(key)));
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static Map<Operation, Integer> mix(String mix) {
+        Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+        for (String entry : mix.split(",")) {
+            String[] weight = entry.trim().split("=");
+            Operation operation = Arrays.stream(Operation.values())
+                    .filter(value -> value.key.equals(weight[0]))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown operation: " + weight[0]));
+            weights.put(operation, Integer.parseInt(weight[1]));
+        }
+        return weights;
+    }
+
+    private enum Operation {
+        FIND_BY_ID("findById"),
+        QUERY("query"),
+        INSERT("insert"),
+        UPDATE("update"),
+        DELETE("delete");
+
+        private final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+    }
+
+    private static final class Load {
+
+        private final PersonRepository repository;
+        private final Queue<Long> inserted = new ConcurrentLinkedQueue<>();
+        private final LatencyHistogram total = new LatencyHistogram();
+        private final AtomicReference<LatencyHistogram> interval = new AtomicReference<>(new LatencyHistogram());
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder intervalErrors = new LongAdder();
+        private final int weights = MIX.values().stream().mapToInt(Integer::intValue).sum();
+
+        private Load(PersonRepository repository) {
+            this.repository = repository;
+        }
+
+        private void run(long warmupEnd, long end) {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long now;
+            while ((now = System.nanoTime()) < end) {
+                boolean failed = false;
+                try {
+                    execute(next(random), random);
+                } catch (RuntimeException e) {
+                    failed = true;
+                }
+                long latency = System.nanoTime() - now;
+                this.interval.get().record(latency);
+                if (failed) {
+                    this.intervalErrors.increment();
+                }
+                if (now >= warmupEnd) {
+                    this.total.record(latency);
+                    if (failed) {
+                        this.errors.increment();
+                    }
+                }
+            }
+        }
+
+        private Operation next(ThreadLocalRandom random) {
+            int value = random.nextInt(this.weights);
+            for (Map.Entry<Operation, Integer> entry : MIX.entrySet()) {
+                value -= entry.getValue();
+                if (value < 0) {
+                    return entry.getKey();
+                }
+            }
+            throw new IllegalStateException("Empty operation mix");
+        }
+
+        private void execute(Operation operation, ThreadLocalRandom random) {
+            String country = COUNTRIES.get(random.nextInt(COUNTRIES.size()));
+            switch (operation) {
+                case FIND_BY_ID -> this.repository.findById(random.nextLong(1, ROWS + 1));
+                case QUERY -> this.repository.query(PERSON.COUNTRY.eq(country), PERSON.ID.asc(), random.nextInt(10), 20);
+                case INSERT -> this.inserted.add(this.repository.insert(new Person(null, "Alice", country)));
+                case UPDATE -> this.repository.update(new Person(random.nextInt(1, ROWS + 1), "Updated", country));
+                case DELETE -> {
+                    Long id = this.inserted.poll();
+                    if (id == null) {
+                        this.inserted.add(this.repository.insert(new Person(null, "Alice", country)));
+                    } else {
+                        this.repository.delete(id);
+                    }
+                }
+            }
+        }
+
+        private void report(String name, long start) {
+            HistogramSnapshot snapshot = this.interval.getAndSet(new LatencyHistogram()).snapshot();
+            long errors = this.intervalErrors.sumThenReset();
+            System.out.printf("[%s] %3ds: %.0f ops/s, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, %d errors%n",
+                    name, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start), snapshot.count() / (INTERVAL.toNanos() / 1e9),
+                    millis(snapshot.p50()), millis(snapshot.p99()), millis(snapshot.p999()), errors);
+        }
+    }
+}
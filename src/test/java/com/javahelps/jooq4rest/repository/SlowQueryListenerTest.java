@@ -0,0 +1,142 @@
+package com.javahelps.jooq4rest.repository;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.jooq.DSLContext;
+import org.jooq.Record;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SuppressWarnings("SqlNoDataSourceInspection")
+class SlowQueryListenerTest {
+
+    private static Connection connection;
+
+    @BeforeAll
+    static void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:SlowQueryListenerTest", "test", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id BIGINT PRIMARY KEY, name VARCHAR(255))");
+            statement.execute("INSERT INTO person VALUES (1, 'John')");
+        }
+    }
+
+    @AfterAll
+    static void tearDown() throws SQLException {
+        connection.close();
+    }
+
+    @Test
+    void testReportWithPlan() {
+        List<SlowQuery> reports = new ArrayList<>();
+        DSLContext context = context(new SlowQueryListener(Duration.ZERO, true, 10, reports::add));
+
+        context.selectFrom(DSL.table("person")).where(DSL.field("name").eq("John")).fetch();
+
+        assertEquals(1, reports.size());
+        SlowQuery report = reports.getFirst();
+        assertTrue(report.sql().startsWith("select"));
+        assertEquals(List.of("John"), report.bindValues());
+        assertNotNull(report.plan());
+        assertTrue(report.plan().toUpperCase().contains("PERSON"));
+        assertEquals(0, report.suppressed());
+    }
+
+    @Test
+    void testThreshold() {
+        List<SlowQuery> reports = new ArrayList<>();
+        DSLContext context = context(new SlowQueryListener(Duration.ofHours(1), true, 10, reports::add));
+
+        context.selectFrom(DSL.table("person")).fetch();
+
+        assertTrue(reports.isEmpty());
+    }
+
+    @Test
+    void testRateLimit() {
+        AtomicLong ticker = new AtomicLong();
+        List<SlowQuery> reports = new ArrayList<>();
+        DSLContext context = context(new SlowQueryListener(Duration.ZERO, false, 2, reports::add, ticker::get));
+
+        for (int i = 0; i < 5; i++) {
+            context.selectFrom(DSL.table("person")).fetch();
+        }
+        assertEquals(2, reports.size());
+        assertNull(reports.getFirst().plan());
+
+        ticker.addAndGet(Duration.ofMinutes(1).toNanos());
+        context.selectFrom(DSL.table("person")).fetch();
+        assertEquals(3, reports.size());
+        assertEquals(3, reports.getLast().suppressed());
+    }
+
+    @Test
+    void testFailedStatement() {
+        List<SlowQuery> reports = new ArrayList<>();
+        DSLContext context = context(new SlowQueryListener(Duration.ZERO, true, 10, reports::add));
+
+        assertThrows(DataAccessException.class, () -> context.insertInto(DSL.table("person"))
+                .columns(DSL.field("id"), DSL.field("name"))
+                .values(1, "John")
+                .execute());
+
+        assertEquals(1, reports.size());
+        assertEquals(List.of(1, "John"), reports.getFirst().bindValues());
+        assertNull(reports.getFirst().plan());
+    }
+
+    @Test
+    void testPlanAfterResultsAreClosed() {
+        List<SlowQuery> reports = new ArrayList<>();
+        DSLContext context = context(new SlowQueryListener(Duration.ZERO, true, 10, reports::add));
+
+        try (Stream<Record> stream = context.selectFrom(DSL.table("person")).fetchStream()) {
+            assertNotNull(stream.iterator().next());
+            // The statement is not explained while its cursor is open
+            assertTrue(reports.isEmpty());
+        }
+
+        assertEquals(1, reports.size());
+        assertNotNull(reports.getFirst().plan());
+    }
+
+    @Test
+    void testPlanAfterConnectionIsReleased() throws SQLException {
+        JdbcConnectionPool pool = JdbcConnectionPool.create("jdbc:h2:mem:SlowQueryListenerTest", "test", "");
+        // Explaining while the statement holds its connection would time out
+        pool.setMaxConnections(1);
+        pool.setLoginTimeout(1);
+        try {
+            List<SlowQuery> reports = new ArrayList<>();
+            SlowQueryListener listener = new SlowQueryListener(Duration.ZERO, true, 10, reports::add);
+            DSLContext context = listener.install(DSL.using(pool, SQLDialect.H2));
+
+            context.selectFrom(DSL.table("person")).fetch();
+
+            assertEquals(1, reports.size());
+            assertNotNull(reports.getFirst().plan());
+            assertEquals(0, pool.getActiveConnections());
+        } finally {
+            pool.dispose();
+        }
+    }
+
+    private static DSLContext context(SlowQueryListener listener) {
+        return DSL.using(connection, SQLDialect.H2).configuration().deriveAppending(listener).dsl();
+    }
+}
@@ -0,0 +1,192 @@
+package com.javahelps.jooq4rest.repository;
+
+import com.javahelps.jooq4rest.cache.EntityCache;
+import com.javahelps.jooq4rest.cache.LruEntityCache;
+import com.javahelps.jooq4rest.metrics.InMemoryRepositoryMetrics;
+import com.javahelps.jooq4rest.metrics.RepositoryMetrics;
+import com.javahelps.jooq4rest.metrics.RepositoryOperation;
+import com.javahelps.jooq4rest.repository.dto.Person;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UnitOfWorkTest {
+
+    private static Connection connection;
+    private static DSLContext context;
+
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:h2:mem:UnitOfWorkTest;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
+        context = DSL.using(connection, SQLDialect.H2);
+    }
+
+    @BeforeEach
+    public void createTable() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS person");
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+            statement.execute("INSERT INTO person (name, country) VALUES ('John', 'USA'), ('Jane', 'UK'), ('Bob', 'LK')");
+        }
+    }
+
+    @Test
+    void testCommit() {
+        InMemoryRepositoryMetrics metrics = new InMemoryRepositoryMetrics();
+        PersonRepository repository = new PersonRepository(context, TransactionMode.READ_WRITE) {
+            @Override
+            protected RepositoryMetrics metrics() {
+                return metrics;
+            }
+        };
+
+        Long id = UnitOfWork.transactionResult(context, unitOfWork -> {
+            Long aliceId = repository.insert(new Person(null, "Alice", "USA"));
+            unitOfWork.update(repository, new Person(1, "John", "UK"));
+            unitOfWork.update(repository, new Person(2, "Jane", "USA"));
+            unitOfWork.delete(repository, 3L);
+            // The buffered writes are flushed before the next operation
+            assertEquals(3, repository.count());
+            return aliceId;
+        });
+
+        assertEquals(Optional.of(new Person(id.intValue(), "Alice", "USA")), repository.findById(id));
+        assertEquals(List.of(new Person(1, "John", "UK"), new Person(2, "Jane", "USA"), new Person(id.intValue(), "Alice", "USA")),
+                repository.findAll());
+
+        // A single batch for the consecutive updates, and no transaction of their own
+        InMemoryRepositoryMetrics.OperationSnapshot updateAll = metrics.snapshot("person", RepositoryOperation.UPDATE_ALL);
+        assertEquals(1, updateAll.latency().count());
+        assertEquals(2, updateAll.rows());
+        assertEquals(1, metrics.snapshot("person", RepositoryOperation.DELETE_ALL).rows());
+        for (RepositoryOperation operation : List.of(RepositoryOperation.INSERT, RepositoryOperation.UPDATE_ALL,
+                RepositoryOperation.DELETE_ALL, RepositoryOperation.COUNT)) {
+            assertEquals(0, metrics.snapshot("person", operation).transactions().count(), operation.name());
+        }
+    }
+
+    @Test
+    void testRollback() {
+        PersonRepository repository = new PersonRepository(context);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> UnitOfWork.transaction(context, unitOfWork -> {
+            repository.insert(new Person(null, "Alice", "USA"));
+            repository.delete(1L);
+            unitOfWork.update(repository, new Person(2, "Jane", "USA"));
+            throw new IllegalStateException("Failed");
+        }));
+
+        assertEquals("Failed", exception.getMessage());
+        assertEquals(List.of(new Person(1, "John", "USA"), new Person(2, "Jane", "UK"), new Person(3, "Bob", "LK")),
+                repository.findAll());
+    }
+
+    @Test
+    void testNestedScopeJoinsOuterScope() {
+        PersonRepository repository = new PersonRepository(context);
+
+        assertThrows(IllegalStateException.class, () -> UnitOfWork.transaction(context, outer -> {
+            UnitOfWork.transaction(context, inner -> {
+                assertSame(outer, inner);
+                inner.delete(repository, 1L);
+            });
+            assertEquals(2, repository.count());
+            throw new IllegalStateException("Failed");
+        }));
+
+        // The inner scope is rolled back with the outer scope
+        assertEquals(3, repository.count());
+    }
+
+    @Test
+    void testEntityCacheInvalidatedAfterCompletion() {
+        EntityCache<Long, Person> cache = new LruEntityCache<>(16, Duration.ofMinutes(1));
+        PersonRepository repository = new PersonRepository(context) {
+            @Override
+            protected EntityCache<Long, Person> entityCache() {
+                return cache;
+            }
+        };
+        assertEquals(Optional.of(new Person(1, "John", "USA")), repository.findById(1L));
+
+        UnitOfWork.transaction(context, unitOfWork -> {
+            repository.update(new Person(1, "Johnny", "USA"));
+            // Read from the transaction instead of the cache
+            assertEquals(Optional.of(new Person(1, "Johnny", "USA")), repository.findById(1L));
+        });
+
+        assertEquals(Optional.of(new Person(1, "Johnny", "USA")), repository.findById(1L));
+    }
+
+    @Test
+    void testFailedFlushDoesNotReplaceException() {
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> UnitOfWork.transaction(context, unitOfWork -> {
+            PersonRepository repository = new PersonRepository(context) {
+                @Override
+                protected int doUpdate(DSLContext context, Person entity) {
+                    // Buffers a write failing with a duplicate key, which is not executed by the cleanup of the update
+                    unitOfWork.insert(this, new Person(1, "John", "USA"));
+                    throw new IllegalStateException("Failed");
+                }
+            };
+            repository.update(new Person(2, "Jane", "USA"));
+        }));
+
+        assertEquals("Failed", exception.getMessage());
+        assertEquals(3, new PersonRepository(context).count());
+    }
+
+    @Test
+    void testFailedCallbackDoesNotSkipOthers() {
+        List<Integer> callbacks = new ArrayList<>();
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> UnitOfWork.transaction(context, unitOfWork -> {
+            unitOfWork.afterCompletion(() -> {
+                callbacks.add(1);
+                throw new IllegalStateException("First");
+            });
+            unitOfWork.afterCompletion(() -> {
+                callbacks.add(2);
+                throw new IllegalStateException("Second");
+            });
+            unitOfWork.afterCompletion(() -> callbacks.add(3));
+        }));
+
+        assertEquals(List.of(1, 2, 3), callbacks);
+        assertEquals("First", exception.getMessage());
+        assertEquals(List.of("Second"), Arrays.stream(exception.getSuppressed()).map(Throwable::getMessage).toList());
+
+        // A failed transaction keeps its exception, with the failures of the callbacks suppressed
+        exception = assertThrows(IllegalStateException.class, () -> UnitOfWork.transaction(context, unitOfWork -> {
+            unitOfWork.afterCompletion(() -> {
+                throw new IllegalStateException("Callback");
+            });
+            throw new IllegalStateException("Failed");
+        }));
+        assertEquals("Failed", exception.getMessage());
+        assertEquals(List.of("Callback"), Arrays.stream(exception.getSuppressed()).map(Throwable::getMessage).toList());
+    }
+
+    @Test
+    void testWriteOutsideScope() {
+        PersonRepository repository = new PersonRepository(context);
+        UnitOfWork unitOfWork = UnitOfWork.transactionResult(context, current -> current);
+
+        assertThrows(IllegalStateException.class, () -> unitOfWork.delete(repository, 1L));
+        assertEquals(3, repository.count());
+    }
+}
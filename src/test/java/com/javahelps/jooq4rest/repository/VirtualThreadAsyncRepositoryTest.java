@@ -0,0 +1,143 @@
+package com.javahelps.jooq4rest.repository;
+
+import com.javahelps.jooq4rest.repository.dto.Person;
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.jooq.DSLContext;
+import org.jooq.SQLDialect;
+import org.jooq.exception.DataAccessException;
+import org.jooq.impl.DSL;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualThreadAsyncRepositoryTest {
+
+    private static final int POOL_SIZE = 8;
+    private static final int REQUESTS = 64;
+
+    private static JdbcConnectionPool pool;
+    private static DSLContext context;
+
+    @BeforeAll
+    public static void setUp() throws SQLException {
+        pool = JdbcConnectionPool.create("jdbc:h2:mem:VirtualThreadAsyncRepositoryTest;DB_CLOSE_DELAY=-1;DATABASE_TO_LOWER=TRUE;CASE_INSENSITIVE_IDENTIFIERS=TRUE;", "test", "");
+        pool.setMaxConnections(POOL_SIZE);
+        context = DSL.using(pool, SQLDialect.H2);
+        try (Connection connection = pool.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE person (id BIGINT AUTO_INCREMENT PRIMARY KEY, name VARCHAR(255), country VARCHAR(255))");
+            statement.execute("INSERT INTO person (name, country) VALUES ('John', 'USA')");
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        pool.dispose();
+    }
+
+    @Test
+    void testOperations() {
+        AsyncRepository<Person, Person, Long> repository = new VirtualThreadAsyncRepository<>(new PersonRepository(context, TransactionMode.READ_WRITE), POOL_SIZE);
+
+        Long id = repository.insert(new Person(null, "Jane", "UK")).toCompletableFuture().join();
+        assertEquals(Optional.of(new Person(id.intValue(), "Jane", "UK")), repository.findById(id).toCompletableFuture().join());
+        assertEquals(2L, repository.count().toCompletableFuture().join());
+
+        List<Person> streamed = new ArrayList<>();
+        repository.streamAll(streamed::add).toCompletableFuture().join();
+        assertEquals(2, streamed.size());
+
+        assertEquals(1, repository.delete(id).toCompletableFuture().join());
+        assertFalse(repository.exists(id).toCompletableFuture().join());
+    }
+
+    @Test
+    void testFailure() {
+        AsyncRepository<Person, Person, Long> repository = new VirtualThreadAsyncRepository<>(new PersonRepository(context), POOL_SIZE);
+        CompletableFuture<Long> insert = repository.insert(new Person(1, "John", "USA")).toCompletableFuture();
+        CompletionException exception = assertThrows(CompletionException.class, insert::join);
+        assertInstanceOf(DataAccessException.class, exception.getCause());
+    }
+
+    @Test
+    void testConcurrencyUpToPermits() {
+        // Each call waits until as many calls as permits are in flight, so the calls must overlap to finish
+        assertEquals(1, maxRunning(1));
+        assertEquals(POOL_SIZE, maxRunning(POOL_SIZE));
+    }
+
+    @Test
+    @Tag("load")
+    void testThroughputScalesWithPermits() {
+        double sequential = throughput(1);
+        double concurrent = throughput(POOL_SIZE);
+        // Calls waiting on the database overlap, so the throughput grows with the permits even on a single CPU
+        assertTrue(concurrent >= sequential * POOL_SIZE / 2,
+                "Throughput with " + POOL_SIZE + " permits: " + concurrent + "/s, with 1 permit: " + sequential + "/s");
+    }
+
+    private static int maxRunning(int maxConcurrency) {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch inFlight = new CountDownLatch(maxConcurrency);
+        PersonRepository blockingRepository = new PersonRepository(context) {
+            @Override
+            protected Optional<Person> doFindById(DSLContext context, Long id) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    inFlight.countDown();
+                    if (!inFlight.await(10, TimeUnit.SECONDS)) {
+                        throw new IllegalStateException("Fewer than " + maxConcurrency + " calls in flight");
+                    }
+                    return super.doFindById(context, id);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    running.decrementAndGet();
+                }
+            }
+        };
+        findAll(new VirtualThreadAsyncRepository<>(blockingRepository, maxConcurrency));
+        return maxRunning.get();
+    }
+
+    private static double throughput(int maxConcurrency) {
+        PersonRepository slowRepository = new PersonRepository(context) {
+            @Override
+            protected Optional<Person> doFindById(DSLContext context, Long id) {
+                try {
+                    // Simulates the network round trip to a remote database
+                    Thread.sleep(10);
+                    return super.doFindById(context, id);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        long start = System.nanoTime();
+        findAll(new VirtualThreadAsyncRepository<>(slowRepository, maxConcurrency));
+        return REQUESTS * 1e9 / (System.nanoTime() - start);
+    }
+
+    private static void findAll(AsyncRepository<Person, Person, Long> repository) {
+        List<CompletableFuture<Optional<Person>>> results = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            results.add(repository.findById(1L).toCompletableFuture());
+        }
+        results.forEach(result -> assertTrue(result.join().isPresent()));
+    }
+}